@@ -0,0 +1,75 @@
+package com.game.benchmarks;
+
+import com.game.config.AppConfig;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.service.PlayerService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The application's root context on the dev profile (embedded H2), filled with generated players.
+ */
+public final class BenchmarkApplication implements AutoCloseable {
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    private static final long YEAR_2001_MILLIS = 978307200000L;
+    //below the default batch.maxSize
+    private static final int SEED_BATCH_SIZE = 10000;
+
+    private final AnnotationConfigApplicationContext context;
+
+    public BenchmarkApplication(int players) {
+        //the dev profile reserves one id at a time, which is only right for the functional tests
+        System.setProperty("id.block.size", "1000");
+
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().setActiveProfiles("dev");
+        context.register(AppConfig.class);
+        context.refresh();
+
+        PlayerService playerService = getBean(PlayerService.class);
+        Random random = new Random(42);
+        for (int seeded = 0; seeded < players; seeded += SEED_BATCH_SIZE) {
+            int count = Math.min(SEED_BATCH_SIZE, players - seeded);
+            List<Player> batch = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                batch.add(randomPlayer(seeded + i, random));
+            }
+            playerService.createPlayers(batch);
+        }
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    public static List<Player> randomPlayers(int count, Random random) {
+        List<Player> players = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            players.add(randomPlayer(i, random));
+        }
+        return players;
+    }
+
+    public static Player randomPlayer(int number, Random random) {
+        Player player = new Player();
+        player.setName("Player" + number % 100000);
+        player.setTitle("Title " + random.nextInt(1000));
+        player.setRace(Race.values()[random.nextInt(Race.values().length)]);
+        player.setProfession(Profession.values()[random.nextInt(Profession.values().length)]);
+        player.setBirthday(new Date(YEAR_2001_MILLIS + random.nextInt(3650) * DAY_MILLIS));
+        player.setBanned(random.nextInt(10) == 0);
+        player.setExperience(random.nextInt(Player.MAX_EXPERIENCE / 10));
+        return player;
+    }
+}
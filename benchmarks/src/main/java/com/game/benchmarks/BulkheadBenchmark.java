@@ -0,0 +1,66 @@
+package com.game.benchmarks;
+
+import com.game.service.Bulkheads;
+import com.game.service.VirtualThreads;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code requests} concurrent calls blocking for {@code slowMillis} each, as a slow query would,
+ * through the read bulkhead on platform or virtual threads; a run of all of them is one operation.
+ * {@code threads} is the pool size on platform threads and the concurrency limit on virtual ones.
+ * Virtual threads need Java 21+ to run the benchmark on, older runtimes fall back to platform
+ * threads, which the trial prints. Throughput is {@code requests} over the time per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xss512k")
+@State(Scope.Benchmark)
+public class BulkheadBenchmark {
+
+    @Param({"10000"})
+    private int requests;
+
+    @Param({"20"})
+    private long slowMillis;
+
+    @Param({"200", "10000"})
+    private int threads;
+
+    @Param({"false", "true"})
+    private boolean virtual;
+
+    private Bulkheads bulkheads;
+
+    @Setup
+    public void setUp() {
+        //room for all of them queued, the calls of the last operation may not have let go of their threads yet
+        bulkheads = new Bulkheads(new VirtualThreads(virtual), true,
+                threads, requests, 60000, 1, 0, 60000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.println();
+        System.out.println((virtual ? "virtual" : "platform") + " threads requested, "
+                + bulkheads.snapshot().get("virtualThreads") + " virtual in use");
+        bulkheads.destroy();
+    }
+
+    @Benchmark
+    public int slowRequests() {
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[requests];
+        for (int i = 0; i < requests; i++) {
+            calls[i] = bulkheads.submit(Bulkheads.Kind.READS, () -> {
+                Thread.sleep(slowMillis);
+                return null;
+            });
+        }
+        CompletableFuture.allOf(calls).join();
+        return calls.length;
+    }
+}
@@ -0,0 +1,94 @@
+package com.game.benchmarks;
+
+import com.game.entity.Player;
+import com.game.entity.Race;
+import com.game.repository.PlayerRepository;
+import com.game.service.PlayerFilter;
+import com.game.service.PlayerService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PlayerRepository.findAll and count against embedded H2 holding {@code rows} generated players,
+ * unfiltered and with the race and banned filters the functional tests use most, and the level
+ * leaderboard read as entities and as the id, name and level projection.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepositoryBenchmark {
+    private static final List<String> LEADERBOARD_FIELDS = Arrays.asList("id", "name", "level");
+
+    @Param({"1000", "10000", "100000"})
+    private int rows;
+
+    private BenchmarkApplication application;
+    private PlayerRepository playerRepository;
+    private Specification<Player> noFilter;
+    private Specification<Player> raceAndBanned;
+    private Pageable firstPage;
+    private Pageable leaderboard;
+
+    @Setup
+    public void setUp() {
+        application = new BenchmarkApplication(rows);
+        playerRepository = application.getBean(PlayerRepository.class);
+        PlayerService playerService = application.getBean(PlayerService.class);
+
+        PlayerFilter filter = new PlayerFilter();
+        filter.setRace(Race.ELF);
+        filter.setBanned(false);
+        noFilter = playerService.filterBy(new PlayerFilter());
+        raceAndBanned = playerService.filterBy(filter);
+        firstPage = PageRequest.of(0, 20, Sort.by("id"));
+        leaderboard = PageRequest.of(0, 20, Sort.by("level"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public Page<Player> findAll() {
+        return playerRepository.findAll(noFilter, firstPage);
+    }
+
+    @Benchmark
+    public Page<Player> findAllFiltered() {
+        return playerRepository.findAll(raceAndBanned, firstPage);
+    }
+
+    @Benchmark
+    public long count() {
+        return playerRepository.count(noFilter);
+    }
+
+    @Benchmark
+    public long countFiltered() {
+        return playerRepository.count(raceAndBanned);
+    }
+
+    @Benchmark
+    public Slice<Player> leaderboardEntities() {
+        return playerRepository.findSlice(noFilter, leaderboard);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> leaderboardFields() {
+        return playerRepository.findFields(noFilter, leaderboard, LEADERBOARD_FIELDS);
+    }
+}
@@ -0,0 +1,104 @@
+package com.game.benchmarks;
+
+import com.game.config.WebConfig;
+import com.game.entity.Player;
+import com.game.service.VirtualThreads;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A List&lt;Player&gt; response body written by each converter WebConfig registers, into a reused
+ * buffer so only the serialization is measured. The body size is printed after each trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+    private static final Type PLAYER_LIST = new ParameterizedTypeReference<List<Player>>() {
+    }.getType();
+
+    @Param({"3", "100", "1000"})
+    private int players;
+
+    @Param({"application/json", "application/cbor", "application/x-player-rows"})
+    private String format;
+
+    private GenericHttpMessageConverter<Object> converter;
+    private MediaType mediaType;
+    private List<Player> body;
+    private BufferedOutputMessage message;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        List<HttpMessageConverter<?>> converters = new ArrayList<>();
+        //the converters need none of the export settings
+        new WebConfig(new VirtualThreads(false), 1, 0, 0).configureMessageConverters(converters);
+        mediaType = MediaType.parseMediaType(format);
+        converter = converters.stream()
+                .filter(candidate -> candidate instanceof GenericHttpMessageConverter)
+                .map(candidate -> (GenericHttpMessageConverter<Object>) candidate)
+                .filter(candidate -> candidate.canWrite(PLAYER_LIST, ArrayList.class, mediaType))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No converter writes " + format));
+
+        body = BenchmarkApplication.randomPlayers(players, new Random(42));
+        for (int i = 0; i < body.size(); i++) {
+            Player player = body.get(i);
+            player.setId((long) i + 1);
+            player.setLevel((((int) Math.sqrt(2500 + 200 * player.getExperience())) - 50) / 100);
+            player.setUntilNextLevel(50 * (player.getLevel() + 1) * (player.getLevel() + 2) - player.getExperience());
+        }
+        message = new BufferedOutputMessage();
+    }
+
+    @Benchmark
+    public int writePlayers() throws IOException {
+        message.reset();
+        converter.write(body, PLAYER_LIST, mediaType, message);
+        return message.body.size();
+    }
+
+    @TearDown
+    public void printPayload() {
+        System.out.println();
+        System.out.println(format + ", " + players + " players: " + message.body.size() + " bytes");
+    }
+
+    private static class BufferedOutputMessage implements HttpOutputMessage {
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(256 * 1024);
+        private final HttpHeaders headers = new HttpHeaders();
+
+        void reset() {
+            body.reset();
+            headers.clear();
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
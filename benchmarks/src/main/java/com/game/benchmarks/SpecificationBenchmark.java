@@ -0,0 +1,89 @@
+package com.game.benchmarks;
+
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.service.PlayerFilter;
+import com.game.service.PlayerService;
+import com.game.service.PlayerServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.framework.Advised;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The filter chain GET /rest/players builds for every request: the Specification itself and the
+ * criteria predicate Hibernate gets from it, with no filter and with every filter set.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpecificationBenchmark {
+    private BenchmarkApplication application;
+    private PlayerServiceImpl playerService;
+    private CriteriaBuilder criteriaBuilder;
+    private PlayerFilter emptyFilter;
+    private PlayerFilter fullFilter;
+
+    @Setup
+    public void setUp() throws Exception {
+        application = new BenchmarkApplication(0);
+        //the bean behind its transactional proxy, which the service's own calls to filterBy never go through
+        playerService = (PlayerServiceImpl) ((Advised) application.getBean(PlayerService.class)).getTargetSource().getTarget();
+        criteriaBuilder = application.getBean(EntityManagerFactory.class).getCriteriaBuilder();
+
+        emptyFilter = new PlayerFilter();
+        fullFilter = new PlayerFilter();
+        fullFilter.setName("Player1");
+        fullFilter.setTitle("Title");
+        fullFilter.setRace(Race.ELF);
+        fullFilter.setProfession(Profession.WARRIOR);
+        fullFilter.setAfter(978307200000L);
+        fullFilter.setBefore(1293840000000L);
+        fullFilter.setBanned(false);
+        fullFilter.setMinExperience(1000);
+        fullFilter.setMaxExperience(500000);
+        fullFilter.setMinLevel(2);
+        fullFilter.setMaxLevel(80);
+    }
+
+    @TearDown
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public Specification<Player> emptyFilterSpecification() {
+        return playerService.filterBy(emptyFilter);
+    }
+
+    @Benchmark
+    public Specification<Player> fullFilterSpecification() {
+        return playerService.filterBy(fullFilter);
+    }
+
+    @Benchmark
+    public Predicate emptyFilterPredicate() {
+        return toPredicate(playerService.filterBy(emptyFilter));
+    }
+
+    @Benchmark
+    public Predicate fullFilterPredicate() {
+        return toPredicate(playerService.filterBy(fullFilter));
+    }
+
+    private Predicate toPredicate(Specification<Player> specification) {
+        CriteriaQuery<Player> query = criteriaBuilder.createQuery(Player.class);
+        Root<Player> root = query.from(Player.class);
+        return specification.toPredicate(root, query, criteriaBuilder);
+    }
+}
@@ -0,0 +1,76 @@
+package com.game.benchmarks;
+
+import com.game.entity.Player;
+import com.game.repository.PlayerRepository;
+import com.game.service.PlayerService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * POST /rest/players/{id} with one changed field: the former load, copy and save path against the
+ * single UPDATE, with and without reading the new state back.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UpdatePlayerBenchmark {
+    private static final int PLAYERS = 10000;
+
+    private BenchmarkApplication application;
+    private PlayerService playerService;
+    private PlayerRepository playerRepository;
+    private TransactionTemplate transaction;
+
+    @Setup
+    public void setUp() {
+        application = new BenchmarkApplication(PLAYERS);
+        playerService = application.getBean(PlayerService.class);
+        playerRepository = application.getBean(PlayerRepository.class);
+        transaction = new TransactionTemplate(application.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public Player loadThenSave() {
+        long id = randomId();
+        Player changes = experienceChange();
+        return transaction.execute(status -> {
+            Player player = playerService.checkForNullsAndSet(changes, id);
+            int level = (((int) Math.sqrt(2500 + 200 * player.getExperience())) - 50) / 100;
+            player.setLevel(level);
+            player.setUntilNextLevel(50 * (level + 1) * (level + 2) - player.getExperience());
+            return playerRepository.save(player);
+        });
+    }
+
+    @Benchmark
+    public Player singleUpdate() {
+        return playerService.updatePlayer(experienceChange(), randomId());
+    }
+
+    @Benchmark
+    public boolean singleUpdateReturnMinimal() {
+        return playerService.updatePlayerFields(experienceChange(), randomId());
+    }
+
+    private static long randomId() {
+        return 1 + ThreadLocalRandom.current().nextInt(PLAYERS);
+    }
+
+    private static Player experienceChange() {
+        Player changes = new Player();
+        changes.setExperience(ThreadLocalRandom.current().nextInt(Player.MAX_EXPERIENCE));
+        return changes;
+    }
+}
@@ -0,0 +1,91 @@
+package com.game.benchmarks;
+
+import com.game.entity.Player;
+import com.game.exceptions.InvalidRequestException;
+import com.game.service.PlayerValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation and level computation of a new player, the work createPlayer does before touching the
+ * database. Run with -prof gc: validatePlayer should report no allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ValidatePlayerBenchmark {
+    private static final int PLAYERS = 1024;
+
+    private PlayerValidator validator;
+    private Player[] players;
+    private Long[] ids;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        validator = new PlayerValidator();
+        List<Player> generated = BenchmarkApplication.randomPlayers(PLAYERS, new Random(42));
+        players = generated.toArray(new Player[0]);
+        ids = new Long[PLAYERS];
+        for (int i = 0; i < PLAYERS; i++) {
+            ids[i] = (long) i + 1;
+        }
+    }
+
+    @Benchmark
+    public int validatePlayer() {
+        Player player = nextPlayer();
+        validator.validateId(ids[next]);
+        validator.validateName(player.getName());
+        validator.validateTitle(player.getTitle());
+        validator.validateRace(player.getRace());
+        validator.validateProfession(player.getProfession());
+        validator.validateExperience(player.getExperience());
+        validator.validateBirthday(player.getBirthday());
+
+        int experience = player.getExperience();
+        int level = validator.currentLevelCalc(experience);
+        return validator.experienceToGetNextLevelCalc(level, experience);
+    }
+
+    //the checks as they were before: regex matches, a Calendar per birthday and the square root
+    @Benchmark
+    public int previousValidatePlayer() {
+        Player player = nextPlayer();
+        Long id = ids[next];
+        if (!id.toString().matches("^[0-9]+$") || id <= 0) throw new InvalidRequestException("Invalid ID");
+        validator.validateName(player.getName());
+        validator.validateTitle(player.getTitle());
+        if (!player.getRace().toString().matches("^[A-Z]+$")) throw new InvalidRequestException("Invalid race");
+        if (!player.getProfession().toString().matches("^[A-Z]+$"))
+            throw new InvalidRequestException("Invalid profession");
+        if (!player.getExperience().toString().matches("^[0-9]+$"))
+            throw new InvalidRequestException("Invalid Experience");
+        previousValidateBirthday(player.getBirthday());
+
+        int experience = player.getExperience();
+        Integer level = (((int) Math.sqrt(2500 + 200 * experience)) - 50) / 100;
+        Integer untilNextLevel = 50 * (level + 1) * (level + 2) - experience;
+        return untilNextLevel;
+    }
+
+    private static void previousValidateBirthday(Date birthday) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(birthday.getTime());
+        if (calendar.get(Calendar.YEAR) < 2000L || calendar.get(Calendar.YEAR) > 3000L)
+            throw new InvalidRequestException("Birthday is out of bounds");
+    }
+
+    private Player nextPlayer() {
+        next = (next + 1) & (PLAYERS - 1);
+        return players[next];
+    }
+}
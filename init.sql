@@ -6,6 +6,9 @@ CREATE DATABASE IF NOT EXISTS test
 USE rpg;
 
 DROP TABLE IF EXISTS player;
+DROP TABLE IF EXISTS player_id_block;
+-- the application re-applies its migrations (indexes etc.) on the next start
+DROP TABLE IF EXISTS flyway_schema_history;
 
 CREATE TABLE player
 (
@@ -1,54 +1,128 @@
 package com.game.config;
 
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.ComponentScan;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Profile;
+import com.game.entity.Player;
+import com.game.metrics.PoolMetrics;
+import com.game.repository.BlockIdGenerator;
+import com.game.repository.IdBlockAllocator;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.*;
+import org.springframework.core.env.Environment;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.stereotype.Controller;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 
+import javax.cache.CacheManager;
+import javax.cache.Caching;
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.util.OptionalLong;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
 
 @Configuration
 @EnableTransactionManagement
-@ComponentScan("com.game")
+@ComponentScan(basePackages = "com.game", excludeFilters = @ComponentScan.Filter(
+        type = FilterType.ANNOTATION, classes = {Controller.class, EnableWebMvc.class}))
 @EnableJpaRepositories(basePackages = "com.game.repository")
+@PropertySource("classpath:application.properties")
 public class AppConfig {
+    private final Environment env;
+
+    @Autowired
+    public AppConfig(Environment env) {
+        this.env = env;
+    }
 
     @Bean
-    public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
+    @DependsOn("flyway")
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource,
+                                                                       IdBlockAllocator playerIdAllocator) {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
-        em.setDataSource(dataSource());
+        em.setDataSource(dataSource);
         em.setPackagesToScan("com.game.entity");
 
         JpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
         em.setJpaVendorAdapter(vendorAdapter);
-        em.setJpaProperties(additionalProperties());
+        Properties properties = additionalProperties();
+        properties.put(BlockIdGenerator.ALLOCATOR_SETTING, playerIdAllocator);
+        em.setJpaProperties(properties);
 
         return em;
     }
 
+    //shared by the Player id generator and the JDBC batch inserts
+    @Bean
+    @DependsOn("flyway")
+    public IdBlockAllocator playerIdAllocator(DataSource dataSource) {
+        return new IdBlockAllocator(dataSource, "player", env.getProperty("id.block.size", Integer.class, 100));
+    }
+
     @Profile("prod")
     @Bean
-    public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        dataSource.setUrl("jdbc:mysql://localhost:3306/rpg?serverTimezone=UTC&characterEncoding=UTF-8");
-        dataSource.setUsername("root");
-        dataSource.setPassword("root");
-        return dataSource;
+    public DataSource dataSource(PoolMetrics poolMetrics) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("rpg");
+        config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        config.setJdbcUrl(env.getProperty("db.url"));
+        config.setUsername(env.getProperty("db.username"));
+        config.setPassword(env.getProperty("db.password"));
+
+        config.setMinimumIdle(env.getProperty("db.pool.minIdle", Integer.class, 5));
+        int maxSize = env.getProperty("db.pool.maxSize", Integer.class, 20);
+        checkConnectionBudget(maxSize);
+        config.setMaximumPoolSize(maxSize);
+        config.setConnectionTimeout(env.getProperty("db.pool.acquireTimeoutMs", Long.class, 2000L));
+        config.setValidationTimeout(env.getProperty("db.pool.validationTimeoutMs", Long.class, 1000L));
+        config.setIdleTimeout(env.getProperty("db.pool.idleTimeoutMs", Long.class, 600000L));
+        config.setMaxLifetime(env.getProperty("db.pool.maxLifetimeMs", Long.class, 1800000L));
+        config.setLeakDetectionThreshold(env.getProperty("db.pool.leakDetectionThresholdMs", Long.class, 0L));
+        String testQuery = env.getProperty("db.pool.connectionTestQuery");
+        if (testQuery != null && !testQuery.isEmpty()) config.setConnectionTestQuery(testQuery);
+
+        //server-side round trips saved on every statement the pool hands out
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", "250");
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+
+        config.setRegisterMbeans(true);
+        config.setMetricsTrackerFactory(poolMetrics);
+
+        return new HikariDataSource(config);
+    }
+
+    //every thread that may block on JDBC at once needs its own connection, or it waits out acquireTimeoutMs:
+    //the bulkheads, export streams and import writers, plus one id block reservation (IdBlockAllocator
+    //reserves one block at a time, beside the caller's connection) and the experience flush when enabled
+    private void checkConnectionBudget(int maxSize) {
+        if (!env.getProperty("bulkhead.enabled", Boolean.class, false)) return;
+
+        int holders = env.getProperty("bulkhead.reads.threads", Integer.class, 9)
+                + env.getProperty("bulkhead.writes.threads", Integer.class, 4)
+                + env.getProperty("export.maxConcurrent", Integer.class, 4)
+                + env.getProperty("import.maxConcurrent", Integer.class, 2)
+                + 1
+                + (env.getProperty("experience.writeBehind.enabled", Boolean.class, false) ? 1 : 0);
+        if (holders > maxSize)
+            throw new IllegalStateException("db.pool.maxSize " + maxSize + " is below the " + holders
+                    + " connections bulkhead threads, exports, imports and id reservation may hold at once");
     }
 
     @Profile("dev")
@@ -64,6 +138,17 @@ public class AppConfig {
                 .build();
     }
 
+    //existing databases created from init.sql are baselined at V1
+    @Bean(initMethod = "migrate")
+    public Flyway flyway(DataSource dataSource) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load();
+    }
+
     @Bean
     public PlatformTransactionManager transactionManager(EntityManagerFactory emf) {
         JpaTransactionManager transactionManager = new JpaTransactionManager();
@@ -79,8 +164,61 @@ public class AppConfig {
 
     private Properties additionalProperties() {
         Properties properties = new Properties();
-        properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
+        properties.setProperty("hibernate.dialect", WindowFunctionMySQLDialect.class.getName());
+        properties.setProperty("hibernate.jdbc.batch_size", env.getProperty("db.batchSize", "50"));
+        properties.setProperty("hibernate.order_inserts", "true");
+        properties.setProperty("hibernate.order_updates", "true");
+
+        boolean cacheEnabled = env.getProperty("cache.l2.enabled", Boolean.class, false);
+        properties.setProperty("javax.persistence.sharedCache.mode", "ENABLE_SELECTIVE");
+        properties.setProperty("hibernate.cache.use_second_level_cache", String.valueOf(cacheEnabled));
+        properties.setProperty("hibernate.cache.use_query_cache", String.valueOf(cacheEnabled));
+        properties.setProperty("hibernate.generate_statistics", String.valueOf(cacheEnabled));
+        if (cacheEnabled) {
+            properties.setProperty("hibernate.cache.region.factory_class", "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager());
+        }
 
         return properties;
     }
+
+    //region sizes come from the profile properties; the timestamps region is never evicted. The regions are
+    //local to the node, so the cache is only right while this node is the only one writing players
+    private CacheManager secondLevelCacheManager() {
+        CacheManager cacheManager = Caching
+                .getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager();
+
+        cacheManager.createCache(Player.CACHE_REGION, regionConfiguration(
+                env.getProperty("cache.l2.player.maxEntries", Long.class, 10000L),
+                env.getProperty("cache.l2.player.ttlSeconds", Long.class, 60L)));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, regionConfiguration(
+                env.getProperty("cache.l2.query.maxEntries", Long.class, 1000L),
+                env.getProperty("cache.l2.query.ttlSeconds", Long.class, 60L)));
+        CaffeineConfiguration<Object, Object> timestamps = new CaffeineConfiguration<>();
+        timestamps.setStatisticsEnabled(true);
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, timestamps);
+
+        return cacheManager;
+    }
+
+    private static CaffeineConfiguration<Object, Object> regionConfiguration(long maxEntries, long ttlSeconds) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+
+    @Configuration
+    @Profile("prod")
+    @PropertySource("classpath:application-prod.properties")
+    static class ProdProperties {
+    }
+
+    @Configuration
+    @Profile("dev")
+    @PropertySource("classpath:application-dev.properties")
+    static class DevProperties {
+    }
 }
\ No newline at end of file
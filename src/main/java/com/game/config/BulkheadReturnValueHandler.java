@@ -0,0 +1,100 @@
+package com.game.config;
+
+import com.game.controller.BulkheadCall;
+import com.game.service.Bulkheads;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs a {@link BulkheadCall} on its bulkhead and completes the request asynchronously with the
+ * result, which Spring then writes as it would the handler method's own return value. A full
+ * bulkhead is answered with 503 before the request goes async, one that does not answer within its
+ * timeout with the 503 of an async request timeout.
+ * <p>
+ * With bulkheads disabled the call runs on the request thread and the result is handed to the
+ * other return value handlers directly, so nothing goes async.
+ */
+public class BulkheadReturnValueHandler implements HandlerMethodReturnValueHandler {
+    private final Bulkheads bulkheads;
+    private final HandlerMethodReturnValueHandler results;
+
+    public BulkheadReturnValueHandler(Bulkheads bulkheads, HandlerMethodReturnValueHandler results) {
+        this.bulkheads = bulkheads;
+        this.results = results;
+    }
+
+    @Override
+    public boolean supportsReturnType(MethodParameter returnType) {
+        return BulkheadCall.class.isAssignableFrom(returnType.getParameterType());
+    }
+
+    @Override
+    public void handleReturnValue(Object returnValue, MethodParameter returnType,
+                                  ModelAndViewContainer mavContainer, NativeWebRequest webRequest) throws Exception {
+        if (returnValue == null) {
+            mavContainer.setRequestHandled(true);
+            return;
+        }
+
+        BulkheadCall<?> call = (BulkheadCall<?>) returnValue;
+        if (!bulkheads.isEnabled()) {
+            results.handleReturnValue(call.getWork().call(), new ResultParameter(returnType), mavContainer, webRequest);
+            return;
+        }
+
+        //submitted first, so a rejected call is answered before anything is started
+        Bulkheads.Kind kind = call.getKind();
+        CompletableFuture<?> result = bulkheads.submit(kind, call.getWork());
+        DeferredResult<Object> deferred = new DeferredResult<>(bulkheads.getTimeoutMillis(kind));
+        deferred.onTimeout(() -> {
+            result.cancel(false);
+            bulkheads.timedOut(kind);
+        });
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                deferred.setErrorResult(error);
+            } else {
+                deferred.setResult(value);
+            }
+        });
+        WebAsyncUtils.getAsyncManager(webRequest).startDeferredResultProcessing(deferred, mavContainer);
+    }
+
+    //the handler method's return type with BulkheadCall<T> replaced by T, as Spring does for async results
+    private static class ResultParameter extends MethodParameter {
+        private final ResolvableType resultType;
+
+        ResultParameter(MethodParameter returnType) {
+            super(returnType);
+            this.resultType = ResolvableType.forMethodParameter(returnType).getGeneric();
+        }
+
+        private ResultParameter(ResultParameter original) {
+            super(original);
+            this.resultType = original.resultType;
+        }
+
+        @Override
+        public Class<?> getParameterType() {
+            return resultType.toClass();
+        }
+
+        @Override
+        public Type getGenericParameterType() {
+            return resultType.getType();
+        }
+
+        @Override
+        public ResultParameter clone() {
+            return new ResultParameter(this);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.game.config;
+
+import com.github.luben.zstd.EndDirective;
+import com.github.luben.zstd.ZstdCompressCtx;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * The content codings responses are compressed with. An {@link Encoder} holds a codec's native state
+ * and its buffers; encoders are pooled and reset between responses, so compressing a response does
+ * not allocate.
+ */
+enum ContentCodec {
+    //RFC 8878, several times faster than gzip at a similar ratio
+    ZSTD("zstd") {
+        @Override
+        Encoder newEncoder(int level, int heldBytes) {
+            return new ZstdEncoder(level, heldBytes);
+        }
+
+        @Override
+        boolean isAvailable() {
+            return ZstdEncoder.AVAILABLE;
+        }
+    },
+    GZIP("gzip") {
+        @Override
+        Encoder newEncoder(int level, int heldBytes) {
+            return new GzipEncoder(level, heldBytes);
+        }
+
+        @Override
+        boolean isAvailable() {
+            return true;
+        }
+    };
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String token;
+
+    ContentCodec(String token) {
+        this.token = token;
+    }
+
+    //the Accept-Encoding / Content-Encoding token
+    String getToken() {
+        return token;
+    }
+
+    abstract Encoder newEncoder(int level, int heldBytes);
+
+    //false when the native library does not load on this platform
+    abstract boolean isAvailable();
+
+    static ContentCodec forToken(String token) {
+        for (ContentCodec codec : values()) {
+            if (codec.token.equalsIgnoreCase(token)) return codec;
+        }
+        throw new IllegalArgumentException("Unknown content coding " + token);
+    }
+
+    abstract static class Encoder {
+        //the start of a response, held until it is known whether it reaches the minimum size
+        final byte[] held;
+        long bytesIn;
+        long bytesOut;
+
+        Encoder(int heldBytes) {
+            this.held = new byte[heldBytes];
+        }
+
+        abstract void write(byte[] b, int off, int len, OutputStream out) throws IOException;
+
+        //everything written so far becomes decodable, for streamed responses
+        abstract void flush(OutputStream out) throws IOException;
+
+        abstract void finish(OutputStream out) throws IOException;
+
+        //ready for the next response, whatever state this one was left in
+        void reset() {
+            bytesIn = 0;
+            bytesOut = 0;
+        }
+
+        //frees the native memory
+        abstract void end();
+    }
+
+    //raw deflate with the gzip header and trailer around it, as GZIPOutputStream writes it but with a
+    //Deflater that is reused
+    private static final class GzipEncoder extends Encoder {
+        private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+        private final Deflater deflater;
+        private final CRC32 crc = new CRC32();
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private boolean started;
+
+        GzipEncoder(int level, int heldBytes) {
+            super(heldBytes);
+            this.deflater = new Deflater(level, true);
+        }
+
+        @Override
+        void write(byte[] b, int off, int len, OutputStream out) throws IOException {
+            start(out);
+            crc.update(b, off, len);
+            bytesIn += len;
+            deflater.setInput(b, off, len);
+            while (!deflater.needsInput()) {
+                deflate(out, Deflater.NO_FLUSH);
+            }
+        }
+
+        @Override
+        void flush(OutputStream out) throws IOException {
+            start(out);
+            while (deflate(out, Deflater.SYNC_FLUSH) == buffer.length) {
+                //the buffer was filled, there may be more
+            }
+        }
+
+        @Override
+        void finish(OutputStream out) throws IOException {
+            start(out);
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate(out, Deflater.NO_FLUSH);
+            }
+            writeIntLE(out, (int) crc.getValue());
+            writeIntLE(out, (int) bytesIn);
+        }
+
+        @Override
+        void reset() {
+            super.reset();
+            deflater.reset();
+            crc.reset();
+            started = false;
+        }
+
+        @Override
+        void end() {
+            deflater.end();
+        }
+
+        private void start(OutputStream out) throws IOException {
+            if (started) return;
+            out.write(HEADER);
+            bytesOut += HEADER.length;
+            started = true;
+        }
+
+        private int deflate(OutputStream out, int flush) throws IOException {
+            int length = deflater.deflate(buffer, 0, buffer.length, flush);
+            if (length > 0) {
+                out.write(buffer, 0, length);
+                bytesOut += length;
+            }
+            return length;
+        }
+
+        private void writeIntLE(OutputStream out, int value) throws IOException {
+            out.write(value);
+            out.write(value >>> 8);
+            out.write(value >>> 16);
+            out.write(value >>> 24);
+            bytesOut += 4;
+        }
+    }
+
+    private static final class ZstdEncoder extends Encoder {
+        static final boolean AVAILABLE = loads();
+
+        private final int level;
+        private final ZstdCompressCtx context;
+        private final ByteBuffer input = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final ByteBuffer output = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+
+        ZstdEncoder(int level, int heldBytes) {
+            super(heldBytes);
+            this.level = level;
+            this.context = new ZstdCompressCtx().setLevel(level);
+        }
+
+        @Override
+        void write(byte[] b, int off, int len, OutputStream out) throws IOException {
+            bytesIn += len;
+            while (len > 0) {
+                int length = Math.min(len, input.remaining());
+                input.put(b, off, length);
+                off += length;
+                len -= length;
+                if (!input.hasRemaining()) compress(out, EndDirective.CONTINUE);
+            }
+        }
+
+        @Override
+        void flush(OutputStream out) throws IOException {
+            compress(out, EndDirective.FLUSH);
+        }
+
+        @Override
+        void finish(OutputStream out) throws IOException {
+            compress(out, EndDirective.END);
+        }
+
+        @Override
+        void reset() {
+            super.reset();
+            context.reset();
+            context.setLevel(level);
+            input.clear();
+            output.clear();
+        }
+
+        @Override
+        void end() {
+            context.close();
+        }
+
+        //CONTINUE returns once the input is taken, FLUSH and END once the frame is written out as well
+        private void compress(OutputStream out, EndDirective directive) throws IOException {
+            input.flip();
+            boolean done;
+            do {
+                done = context.compressDirectByteBufferStream(output, input, directive);
+                output.flip();
+                int length = output.remaining();
+                if (length > 0) {
+                    output.get(buffer, 0, length);
+                    out.write(buffer, 0, length);
+                    bytesOut += length;
+                }
+                output.clear();
+            } while (directive == EndDirective.CONTINUE ? input.hasRemaining() : !done);
+            input.clear();
+        }
+
+        private static boolean loads() {
+            try {
+                new ZstdCompressCtx().close();
+                return true;
+            } catch (LinkageError e) {
+                return false;
+            }
+        }
+    }
+}
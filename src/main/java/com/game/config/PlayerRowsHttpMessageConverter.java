@@ -0,0 +1,289 @@
+package com.game.config;
+
+import com.game.dto.PlayerPage;
+import com.game.dto.PlayerSlice;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Players as fixed-schema binary rows, {@code application/x-player-rows}. All numbers are big-endian.
+ * <pre>
+ * body    = version:byte [page | slice] count:int row*      (count and rows only for lists, pages and slices)
+ * page    = total:long pageNumber:int pageSize:int
+ * slice   = pageNumber:int pageSize:int hasNext:byte
+ * row     = present:short [id:long] [name:utf] [title:utf] [race:byte] [profession:byte]
+ *           [birthday:int] [experience:int] [level:int] [untilNextLevel:int]
+ * </pre>
+ * Bit i of {@code present} is set when the i-th optional field follows, in the order above, bit 7
+ * when banned is known and bit 8 when it is true; level and untilNextLevel use bits 9 and 10. Race and profession are enum ordinals, birthday
+ * is days since 1970-01-01 in the server's time zone and utf is a length-prefixed modified UTF-8
+ * string as {@link DataOutputStream#writeUTF} writes it. Any change to this layout or to the order
+ * of the enum constants needs a new version.
+ */
+public class PlayerRowsHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+    public static final MediaType PLAYER_ROWS = MediaType.parseMediaType("application/x-player-rows");
+    static final int VERSION = 2;
+
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+    //fixed at startup, like the birthday bounds in PlayerServiceImpl
+    private static final TimeZone ZONE = TimeZone.getDefault();
+    private static final Race[] RACES = Race.values();
+    private static final Profession[] PROFESSIONS = Profession.values();
+    private static final int ID = 1;
+    private static final int NAME = 1 << 1;
+    private static final int TITLE = 1 << 2;
+    private static final int RACE = 1 << 3;
+    private static final int PROFESSION = 1 << 4;
+    private static final int BIRTHDAY = 1 << 5;
+    private static final int EXPERIENCE = 1 << 6;
+    private static final int BANNED_KNOWN = 1 << 7;
+    private static final int BANNED = 1 << 8;
+    private static final int LEVEL = 1 << 9;
+    private static final int UNTIL_NEXT_LEVEL = 1 << 10;
+
+    public PlayerRowsHttpMessageConverter() {
+        super(PLAYER_ROWS);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Player.class == clazz || PlayerPage.class == clazz || PlayerSlice.class == clazz;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        ResolvableType resolved = ResolvableType.forType(type);
+        return (resolved.resolve() == Player.class || isPlayerList(resolved)) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        ResolvableType resolved = type == null ? ResolvableType.NONE : ResolvableType.forType(type);
+        Class<?> raw = resolved.resolve(Object.class);
+        //a body declared as Object or ? is judged by its runtime class
+        if (raw == Object.class || raw == clazz) return canWrite(clazz, mediaType);
+
+        return (raw == Player.class || raw == PlayerPage.class || raw == PlayerSlice.class || isPlayerList(resolved))
+                && canWrite(mediaType);
+    }
+
+    @Override
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        RowOutput out = new RowOutput(outputMessage.getBody());
+        out.writeByte(VERSION);
+        if (body instanceof Player) {
+            writeRow(out, (Player) body);
+        } else if (body instanceof PlayerPage) {
+            PlayerPage page = (PlayerPage) body;
+            out.writeLong(page.getTotal());
+            out.writeInt(page.getPageNumber());
+            out.writeInt(page.getPageSize());
+            writeRows(out, page.getContent());
+        } else if (body instanceof PlayerSlice) {
+            PlayerSlice slice = (PlayerSlice) body;
+            out.writeInt(slice.getPageNumber());
+            out.writeInt(slice.getPageSize());
+            out.writeBoolean(slice.hasNext());
+            writeRows(out, slice.getContent());
+        } else {
+            @SuppressWarnings("unchecked")
+            Collection<Player> players = (Collection<Player>) body;
+            writeRows(out, players);
+        }
+        out.flush();
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return readInternal(ResolvableType.forType(type).resolve(), inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputMessage.getBody(), 8192));
+        try {
+            int version = in.readUnsignedByte();
+            if (version != VERSION)
+                throw new HttpMessageNotReadableException("Unsupported player rows version " + version, inputMessage);
+            if (clazz == Player.class) return readRow(in, inputMessage);
+
+            int count = in.readInt();
+            if (count < 0) throw new HttpMessageNotReadableException("Invalid row count", inputMessage);
+            List<Player> players = new ArrayList<>(Math.min(count, 1024));
+            for (int i = 0; i < count; i++) {
+                players.add(readRow(in, inputMessage));
+            }
+            return players;
+        } catch (EOFException e) {
+            throw new HttpMessageNotReadableException("Truncated player rows", e, inputMessage);
+        }
+    }
+
+    private static boolean isPlayerList(ResolvableType type) {
+        Class<?> raw = type.resolve();
+        return raw != null && raw.isAssignableFrom(ArrayList.class) && Collection.class.isAssignableFrom(raw)
+                && type.getGeneric(0).resolve() == Player.class;
+    }
+
+    private static void writeRows(RowOutput out, Collection<Player> players) throws IOException {
+        out.writeInt(players.size());
+        for (Player player : players) {
+            writeRow(out, player);
+        }
+    }
+
+    private static void writeRow(RowOutput out, Player player) throws IOException {
+        int present = 0;
+        if (player.getId() != null) present |= ID;
+        if (player.getName() != null) present |= NAME;
+        if (player.getTitle() != null) present |= TITLE;
+        if (player.getRace() != null) present |= RACE;
+        if (player.getProfession() != null) present |= PROFESSION;
+        if (player.getBirthday() != null) present |= BIRTHDAY;
+        if (player.getExperience() != null) present |= EXPERIENCE;
+        if (player.isBanned() != null) present |= player.isBanned() ? BANNED_KNOWN | BANNED : BANNED_KNOWN;
+        if (player.getLevel() != null) present |= LEVEL;
+        if (player.getUntilNextLevel() != null) present |= UNTIL_NEXT_LEVEL;
+
+        out.writeShort(present);
+        if ((present & ID) != 0) out.writeLong(player.getId());
+        if ((present & NAME) != 0) out.writeUTF(player.getName());
+        if ((present & TITLE) != 0) out.writeUTF(player.getTitle());
+        if ((present & RACE) != 0) out.writeByte(player.getRace().ordinal());
+        if ((present & PROFESSION) != 0) out.writeByte(player.getProfession().ordinal());
+        if ((present & BIRTHDAY) != 0) out.writeInt((int) epochDay(player.getBirthday()));
+        if ((present & EXPERIENCE) != 0) out.writeInt(player.getExperience());
+        if ((present & LEVEL) != 0) out.writeInt(player.getLevel());
+        if ((present & UNTIL_NEXT_LEVEL) != 0) out.writeInt(player.getUntilNextLevel());
+    }
+
+    private static Player readRow(DataInputStream in, HttpInputMessage inputMessage) throws IOException {
+        int present = in.readUnsignedShort();
+        Player player = new Player();
+        if ((present & ID) != 0) player.setId(in.readLong());
+        if ((present & NAME) != 0) player.setName(in.readUTF());
+        if ((present & TITLE) != 0) player.setTitle(in.readUTF());
+        if ((present & RACE) != 0) player.setRace(constant(RACES, in.readUnsignedByte(), inputMessage));
+        if ((present & PROFESSION) != 0) player.setProfession(constant(PROFESSIONS, in.readUnsignedByte(), inputMessage));
+        if ((present & BIRTHDAY) != 0) player.setBirthday(fromEpochDay(in.readInt()));
+        if ((present & EXPERIENCE) != 0) player.setExperience(in.readInt());
+        if ((present & BANNED_KNOWN) != 0) player.setBanned((present & BANNED) != 0);
+        if ((present & LEVEL) != 0) player.setLevel(in.readInt());
+        if ((present & UNTIL_NEXT_LEVEL) != 0) player.setUntilNextLevel(in.readInt());
+        return player;
+    }
+
+    private static <E> E constant(E[] constants, int ordinal, HttpInputMessage inputMessage) {
+        if (ordinal >= constants.length) throw new HttpMessageNotReadableException("Invalid ordinal " + ordinal, inputMessage);
+        return constants[ordinal];
+    }
+
+    private static long epochDay(Date date) {
+        long millis = date.getTime();
+        return Math.floorDiv(millis + ZONE.getOffset(millis), DAY_MILLIS);
+    }
+
+    private static Date fromEpochDay(long epochDay) {
+        return Date.from(LocalDate.ofEpochDay(epochDay).atStartOfDay(ZONE.toZoneId()).toInstant());
+    }
+
+    //DataOutputStream without its per-string allocations and synchronized writes
+    private static final class RowOutput {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[8192];
+        private int position;
+
+        RowOutput(OutputStream out) {
+            this.out = out;
+        }
+
+        void writeBoolean(boolean value) throws IOException {
+            writeByte(value ? 1 : 0);
+        }
+
+        void writeByte(int value) throws IOException {
+            ensure(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeShort(int value) throws IOException {
+            ensure(2);
+            buffer[position++] = (byte) (value >>> 8);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeInt(int value) throws IOException {
+            ensure(4);
+            buffer[position++] = (byte) (value >>> 24);
+            buffer[position++] = (byte) (value >>> 16);
+            buffer[position++] = (byte) (value >>> 8);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeLong(long value) throws IOException {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        //modified UTF-8 with an unsigned short length, as DataInputStream.readUTF reads it
+        void writeUTF(String value) throws IOException {
+            int length = value.length();
+            int encoded = 0;
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                encoded += c >= 0x0001 && c <= 0x007F ? 1 : c > 0x07FF ? 3 : 2;
+            }
+            if (encoded > 65535) throw new IOException("String too long: " + encoded + " bytes");
+
+            writeShort(encoded);
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                ensure(3);
+                if (c >= 0x0001 && c <= 0x007F) {
+                    buffer[position++] = (byte) c;
+                } else if (c > 0x07FF) {
+                    buffer[position++] = (byte) (0xE0 | ((c >> 12) & 0x0F));
+                    buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                } else {
+                    buffer[position++] = (byte) (0xC0 | ((c >> 6) & 0x1F));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        void flush() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+            out.flush();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (position + bytes <= buffer.length) return;
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
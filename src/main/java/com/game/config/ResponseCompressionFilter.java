@@ -0,0 +1,599 @@
+package com.game.config;
+
+import com.game.metrics.MetricsSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compresses responses of at least {@code minSize} bytes with the first of {@code codecs} the client
+ * accepts. Registered from {@link MyWebAppInit} and off unless {@code compression.enabled} is set.
+ * <p>
+ * The first {@code minSize} bytes are held back, so a response that ends before that (a count, a
+ * single player) goes out as it is and with its exact Content-Length. Streamed responses are
+ * compressed as they are written and finished when the stream is closed or the async request
+ * completes. A compressed response's ETag gets the coding appended ({@code "3--gzip"}), which is
+ * removed again from If-None-Match and If-Match before the controllers see them. A response written
+ * with a {@link WriteListener} goes out uncompressed.
+ */
+@Component
+public class ResponseCompressionFilter extends OncePerRequestFilter implements MetricsSource {
+    private static final Logger LOG = LoggerFactory.getLogger(ResponseCompressionFilter.class);
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean THREAD_CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported();
+    private static final String TAG_SEPARATOR = "--";
+    private static final String RESPONSE_ATTRIBUTE = ResponseCompressionFilter.class.getName() + ".response";
+
+    private final boolean enabled;
+    private final int minSize;
+    private final List<ContentCodec> codecs = new ArrayList<>();
+    private final Map<ContentCodec, EncoderPool> pools = new EnumMap<>(ContentCodec.class);
+    private final Map<ContentCodec, CodecStats> stats = new EnumMap<>(ContentCodec.class);
+    private final LongAdder noAcceptedCoding = new LongAdder();
+    private final LongAdder belowMinSize = new LongAdder();
+    private final LongAdder notCompressible = new LongAdder();
+    private final LongAdder nonBlocking = new LongAdder();
+
+    @Autowired
+    public ResponseCompressionFilter(@Value("${compression.enabled:false}") boolean enabled,
+                                     @Value("${compression.codecs:zstd,gzip}") String codecs,
+                                     @Value("${compression.minSize:1024}") int minSize,
+                                     @Value("${compression.gzipLevel:6}") int gzipLevel,
+                                     @Value("${compression.zstdLevel:3}") int zstdLevel,
+                                     @Value("${compression.poolSize:64}") int poolSize) {
+        this.enabled = enabled;
+        this.minSize = minSize;
+        for (String token : codecs.split(",")) {
+            if (token.trim().isEmpty()) continue;
+            ContentCodec codec = ContentCodec.forToken(token.trim());
+            if (!codec.isAvailable()) {
+                if (enabled) LOG.warn("Content coding {} is not available on this platform", codec.getToken());
+                continue;
+            }
+            this.codecs.add(codec);
+            pools.put(codec, new EncoderPool(codec, codec == ContentCodec.GZIP ? gzipLevel : zstdLevel, poolSize));
+            stats.put(codec, new CodecStats());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        pools.values().forEach(EncoderPool::clear);
+    }
+
+    //the response is finished on the dispatch that follows an async request, not when it starts
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!enabled) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (isAsyncDispatch(request)) {
+            CompressingResponse compressing = (CompressingResponse) request.getAttribute(RESPONSE_ATTRIBUTE);
+            chain.doFilter(request, response);
+            if (compressing != null && !request.isAsyncStarted()) compressing.finish();
+            return;
+        }
+
+        HttpServletRequest untagged = new UntaggedRequest(request);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        ContentCodec codec = "HEAD".equals(request.getMethod()) ? null : negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (codec == null) {
+            noAcceptedCoding.increment();
+            chain.doFilter(untagged, response);
+            return;
+        }
+
+        CompressingResponse compressing = new CompressingResponse(response, codec, tagged(request, codec));
+        request.setAttribute(RESPONSE_ATTRIBUTE, compressing);
+        try {
+            chain.doFilter(untagged, compressing);
+        } catch (IOException | ServletException | RuntimeException e) {
+            compressing.abandon();
+            throw e;
+        }
+        if (request.isAsyncStarted()) {
+            request.getAsyncContext().addListener(new EncoderRelease(compressing));
+        } else {
+            compressing.finish();
+        }
+    }
+
+    //the acceptable codec with the highest q, ties go to the one listed first in compression.codecs
+    ContentCodec negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) return null;
+
+        Map<String, Double> accepted = new LinkedHashMap<>();
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String token = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (token.equals("x-gzip")) token = ContentCodec.GZIP.getToken();
+            double q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (!parameter.startsWith("q=")) continue;
+                try {
+                    q = Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    q = 0;
+                }
+            }
+            accepted.put(token, q);
+        }
+
+        ContentCodec chosen = null;
+        double best = 0;
+        for (ContentCodec codec : codecs) {
+            Double q = accepted.get(codec.getToken());
+            if (q == null) q = accepted.getOrDefault("*", 0.0);
+            if (q > best) {
+                best = q;
+                chosen = codec;
+            }
+        }
+        return chosen;
+    }
+
+    //whether the client revalidates a representation it got compressed with this codec
+    private static boolean tagged(HttpServletRequest request, ContentCodec codec) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        return ifNoneMatch != null && ifNoneMatch.contains(TAG_SEPARATOR + codec.getToken() + "\"");
+    }
+
+    private static String untag(String tags) {
+        if (tags == null || !tags.contains(TAG_SEPARATOR)) return tags;
+        for (ContentCodec codec : ContentCodec.values()) {
+            tags = tags.replace(TAG_SEPARATOR + codec.getToken() + "\"", "\"");
+        }
+        return tags;
+    }
+
+    private static String tag(String eTag, ContentCodec codec) {
+        if (eTag == null || !eTag.endsWith("\"")) return eTag;
+        return eTag.substring(0, eTag.length() - 1) + TAG_SEPARATOR + codec.getToken() + "\"";
+    }
+
+    private static boolean compressible(String contentType) {
+        if (contentType == null) return false;
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return !(type.startsWith("image/") || type.startsWith("audio/") || type.startsWith("video/")
+                || type.startsWith("application/zip") || type.startsWith("application/gzip")
+                || type.startsWith("application/zstd"));
+    }
+
+    private static long cpuNanos() {
+        return THREAD_CPU_TIME ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    @Override
+    public String getName() {
+        return "compression";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", enabled);
+        snapshot.put("minSize", minSize);
+        for (ContentCodec codec : codecs) {
+            CodecStats codecStats = stats.get(codec);
+            long responses = codecStats.responses.sum();
+            long bytesIn = codecStats.bytesIn.sum();
+            long bytesOut = codecStats.bytesOut.sum();
+            long cpuNanos = codecStats.cpuNanos.sum();
+
+            Map<String, Object> counts = new LinkedHashMap<>();
+            counts.put("responses", responses);
+            counts.put("bytesIn", bytesIn);
+            counts.put("bytesOut", bytesOut);
+            counts.put("ratio", bytesOut == 0 ? 0.0 : (double) bytesIn / bytesOut);
+            counts.put("cpuMillis", cpuNanos / 1_000_000);
+            counts.put("cpuNanosPerKiB", bytesIn == 0 ? 0 : cpuNanos * 1024 / bytesIn);
+            counts.put("encodersCreated", pools.get(codec).created.sum());
+            counts.put("encodersIdle", pools.get(codec).idle.size());
+            snapshot.put(codec.getToken(), counts);
+        }
+        snapshot.put("noAcceptedCoding", noAcceptedCoding.sum());
+        snapshot.put("belowMinSize", belowMinSize.sum());
+        snapshot.put("notCompressible", notCompressible.sum());
+        snapshot.put("nonBlocking", nonBlocking.sum());
+        return snapshot;
+    }
+
+    private static class CodecStats {
+        final LongAdder responses = new LongAdder();
+        final LongAdder bytesIn = new LongAdder();
+        final LongAdder bytesOut = new LongAdder();
+        final LongAdder cpuNanos = new LongAdder();
+    }
+
+    private class EncoderPool {
+        final ContentCodec codec;
+        final int level;
+        final BlockingQueue<ContentCodec.Encoder> idle;
+        final LongAdder created = new LongAdder();
+
+        EncoderPool(ContentCodec codec, int level, int size) {
+            this.codec = codec;
+            this.level = level;
+            this.idle = new ArrayBlockingQueue<>(Math.max(1, size));
+        }
+
+        ContentCodec.Encoder borrow() {
+            ContentCodec.Encoder encoder = idle.poll();
+            if (encoder != null) return encoder;
+            created.increment();
+            return codec.newEncoder(level, minSize);
+        }
+
+        void release(ContentCodec.Encoder encoder) {
+            encoder.reset();
+            if (!idle.offer(encoder)) encoder.end();
+        }
+
+        void clear() {
+            for (ContentCodec.Encoder encoder = idle.poll(); encoder != null; encoder = idle.poll()) {
+                encoder.end();
+            }
+        }
+    }
+
+    //an async request that times out or fails may complete without the dispatch that finishes the response;
+    //the dispatch after a timeout may still write, so the encoder is only given back on completion
+    private static class EncoderRelease implements AsyncListener {
+        private final CompressingResponse response;
+
+        EncoderRelease(CompressingResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            response.abandon();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    private static class UntaggedRequest extends HttpServletRequestWrapper {
+        UntaggedRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            String value = super.getHeader(name);
+            return isTagHeader(name) ? untag(value) : value;
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            Enumeration<String> values = super.getHeaders(name);
+            if (!isTagHeader(name) || values == null) return values;
+
+            List<String> untagged = new ArrayList<>();
+            while (values.hasMoreElements()) {
+                untagged.add(untag(values.nextElement()));
+            }
+            return Collections.enumeration(untagged);
+        }
+
+        private static boolean isTagHeader(String name) {
+            return HttpHeaders.IF_NONE_MATCH.equalsIgnoreCase(name) || HttpHeaders.IF_MATCH.equalsIgnoreCase(name);
+        }
+    }
+
+    private enum State {HELD, IDENTITY, COMPRESSING}
+
+    private class CompressingResponse extends HttpServletResponseWrapper {
+        private final ContentCodec codec;
+        private final boolean tagged;
+        private final EncoderPool pool;
+        private final ContentCodec.Encoder encoder;
+        private final byte[] held;
+        private int heldLength;
+        private long contentLength = -1;
+        private State state = State.HELD;
+        private long cpuNanos;
+        private boolean finished;
+        private boolean released;
+        private ServletOutputStream raw;
+        private CompressingStream stream;
+        private PrintWriter writer;
+
+        CompressingResponse(HttpServletResponse response, ContentCodec codec, boolean tagged) {
+            super(response);
+            this.codec = codec;
+            this.tagged = tagged;
+            this.pool = pools.get(codec);
+            this.encoder = pool.borrow();
+            this.held = encoder.held;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) throw new IllegalStateException("getWriter() has already been called");
+            if (stream == null) stream = new CompressingStream();
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer != null) return writer;
+            if (stream != null) throw new IllegalStateException("getOutputStream() has already been called");
+            stream = new CompressingStream();
+            writer = new PrintWriter(new OutputStreamWriter(stream, getCharacterEncoding()));
+            return writer;
+        }
+
+        //known only once the body is, for a held response, and meaningless for a compressed one
+        @Override
+        public void setContentLength(int len) {
+            setContentLengthLong(len);
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            if (state == State.IDENTITY) {
+                super.setContentLengthLong(len);
+            } else {
+                contentLength = len;
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(value == null ? -1 : Long.parseLong(value));
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setHeader(name, value);
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            setHeader(name, Integer.toString(value));
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            addHeader(name, Integer.toString(value));
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) writer.flush();
+            if (stream != null) stream.flush();
+            if (state != State.HELD) super.flushBuffer();
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            if (state == State.HELD) heldLength = 0;
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (state == State.HELD) {
+                heldLength = 0;
+                contentLength = -1;
+            }
+        }
+
+        //synchronized with abandon, which may run on a container thread while a late writer is still going
+        synchronized void write(byte[] b, int off, int len) throws IOException {
+            if (finished) throw new IOException("Response already finished");
+            if (state == State.HELD) {
+                if (heldLength + len <= held.length) {
+                    System.arraycopy(b, off, held, heldLength, len);
+                    heldLength += len;
+                    return;
+                }
+                decide();
+            }
+
+            if (state == State.COMPRESSING) {
+                long start = cpuNanos();
+                encoder.write(b, off, len, raw);
+                cpuNanos += cpuNanos() - start;
+            } else {
+                raw.write(b, off, len);
+            }
+        }
+
+        synchronized void flush() throws IOException {
+            if (finished || state == State.HELD) return;
+            if (state == State.COMPRESSING) {
+                long start = cpuNanos();
+                encoder.flush(raw);
+                cpuNanos += cpuNanos() - start;
+            }
+            raw.flush();
+        }
+
+        //the body reached the minimum size
+        private void decide() throws IOException {
+            int status = getStatus();
+            boolean compress = getHeader(HttpHeaders.CONTENT_ENCODING) == null
+                    && status != SC_NO_CONTENT && status != SC_PARTIAL_CONTENT && compressible(getContentType());
+            raw = super.getOutputStream();
+            if (compress) {
+                state = State.COMPRESSING;
+                super.setHeader(HttpHeaders.CONTENT_ENCODING, codec.getToken());
+                String eTag = getHeader(HttpHeaders.ETAG);
+                if (eTag != null) super.setHeader(HttpHeaders.ETAG, tag(eTag, codec));
+                long start = cpuNanos();
+                encoder.write(held, 0, heldLength, raw);
+                cpuNanos += cpuNanos() - start;
+            } else {
+                notCompressible.increment();
+                state = State.IDENTITY;
+                if (contentLength >= 0) super.setContentLengthLong(contentLength);
+                raw.write(held, 0, heldLength);
+            }
+            heldLength = 0;
+        }
+
+        synchronized void finish() throws IOException {
+            if (finished) return;
+            if (writer != null) writer.flush();
+            finished = true;
+            try {
+                if (state == State.HELD) {
+                    if (heldLength > 0) {
+                        belowMinSize.increment();
+                        super.setContentLengthLong(heldLength);
+                        raw = super.getOutputStream();
+                        raw.write(held, 0, heldLength);
+                    } else if (getStatus() == SC_NOT_MODIFIED && tagged) {
+                        String eTag = getHeader(HttpHeaders.ETAG);
+                        if (eTag != null) super.setHeader(HttpHeaders.ETAG, tag(eTag, codec));
+                    }
+                } else if (state == State.COMPRESSING) {
+                    long start = cpuNanos();
+                    encoder.finish(raw);
+                    cpuNanos += cpuNanos() - start;
+
+                    CodecStats codecStats = stats.get(codec);
+                    codecStats.responses.increment();
+                    codecStats.bytesIn.add(encoder.bytesIn);
+                    codecStats.bytesOut.add(encoder.bytesOut);
+                    codecStats.cpuNanos.add(cpuNanos);
+                }
+            } finally {
+                release();
+            }
+        }
+
+        synchronized void abandon() {
+            if (finished) return;
+            finished = true;
+            release();
+        }
+
+        //non-blocking writes cannot go through the encoder, which writes to the raw stream as it goes:
+        //whatever was held goes out first and the rest of the body as it is written
+        synchronized void passThrough() throws IOException {
+            if (state == State.COMPRESSING) throw new IllegalStateException("Response is already being compressed");
+            if (state == State.HELD) {
+                nonBlocking.increment();
+                state = State.IDENTITY;
+                raw = super.getOutputStream();
+                if (contentLength >= 0) super.setContentLengthLong(contentLength);
+                raw.write(held, 0, heldLength);
+                heldLength = 0;
+            }
+            release();
+        }
+
+        private void release() {
+            if (released) return;
+            released = true;
+            pool.release(encoder);
+        }
+
+        private class CompressingStream extends ServletOutputStream {
+            private final byte[] single = new byte[1];
+
+            @Override
+            public void write(int b) throws IOException {
+                single[0] = (byte) b;
+                CompressingResponse.this.write(single, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                CompressingResponse.this.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                CompressingResponse.this.flush();
+            }
+
+            //a streamed body closes its stream when it is done, long before the async request completes
+            @Override
+            public void close() throws IOException {
+                finish();
+                if (raw != null) raw.close();
+            }
+
+            @Override
+            public boolean isReady() {
+                return raw == null || raw.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+                try {
+                    passThrough();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                raw.setWriteListener(listener);
+            }
+        }
+    }
+}
@@ -2,26 +2,56 @@ package com.game.config;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.service.Bulkheads;
+import com.game.service.VirtualThreads;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandlerComposite;
 import org.springframework.web.servlet.ViewResolver;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
 import org.springframework.web.servlet.view.InternalResourceViewResolver;
 import org.springframework.web.servlet.view.JstlView;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Configuration
 @EnableWebMvc
-@ComponentScan("com.game")
+@ComponentScan("com.game.controller")
 public class WebConfig implements WebMvcConfigurer {
 
+    //streamed responses such as the player export, each holds a thread and a connection until it is written
+    private final int exportMaxConcurrent;
+    private final int exportMaxQueued;
+    private final long exportTimeoutMillis;
+    private final VirtualThreads virtualThreads;
+
+    @Autowired
+    public WebConfig(VirtualThreads virtualThreads,
+                     @Value("${export.maxConcurrent:4}") int exportMaxConcurrent,
+                     @Value("${export.maxQueued:100}") int exportMaxQueued,
+                     @Value("${export.timeoutMillis:600000}") long exportTimeoutMillis) {
+        this.virtualThreads = virtualThreads;
+        this.exportMaxConcurrent = exportMaxConcurrent;
+        this.exportMaxQueued = exportMaxQueued;
+        this.exportTimeoutMillis = exportTimeoutMillis;
+    }
 
     @Bean
     public ViewResolver internalResourceViewResolver() {
@@ -42,11 +72,52 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addResourceHandler("/resources/**").addResourceLocations("/resources/");
     }
 
+    //JSON stays the default, clients asking for application/cbor or application/x-player-rows get those
     @Override
     public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
-        MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
-        converter.getObjectMapper().setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
-        converter.getObjectMapper().setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
-        converters.add(converter);
+        converters.add(new MappingJackson2HttpMessageConverter(objectMapper()));
+        converters.add(new MappingJackson2CborHttpMessageConverter(fieldsOnly(Jackson2ObjectMapperBuilder.cbor())));
+        converters.add(new PlayerRowsHttpMessageConverter());
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamingExecutor());
+        configurer.setDefaultTimeout(exportTimeoutMillis);
+    }
+
+    @Bean
+    public ObjectMapper objectMapper() {
+        return fieldsOnly(Jackson2ObjectMapperBuilder.json());
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor streamingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, exportMaxConcurrent));
+        executor.setMaxPoolSize(Math.max(1, exportMaxConcurrent));
+        executor.setQueueCapacity(exportMaxQueued);
+        executor.setThreadNamePrefix("streaming-");
+        //still pooled, the pool size is what bounds the exports holding a connection
+        if (virtualThreads.isActive()) executor.setThreadFactory(virtualThreads.newFactory("streaming"));
+        return executor;
+    }
+
+    //ahead of the built-in handlers, which would otherwise write the BulkheadCall itself as the body
+    @Bean
+    public SmartInitializingSingleton bulkheadReturnValues(RequestMappingHandlerAdapter handlerAdapter, Bulkheads bulkheads) {
+        return () -> {
+            List<HandlerMethodReturnValueHandler> handlers = new ArrayList<>(handlerAdapter.getReturnValueHandlers());
+            HandlerMethodReturnValueHandlerComposite results = new HandlerMethodReturnValueHandlerComposite().addHandlers(handlers);
+            handlers.add(0, new BulkheadReturnValueHandler(bulkheads, results));
+            handlerAdapter.setReturnValueHandlers(handlers);
+        };
+    }
+
+    private static ObjectMapper fieldsOnly(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper mapper = builder.build();
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        mapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        return mapper;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,18 @@
+package com.game.config;
+
+import org.hibernate.dialect.MySQL5Dialect;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * MySQL dialect with the window functions used by the player queries.
+ * Needs MySQL 8 (or H2 1.4.198+) on the server side.
+ */
+public class WindowFunctionMySQLDialect extends MySQL5Dialect {
+    public static final String COUNT_OVER = "count_over";
+
+    public WindowFunctionMySQLDialect() {
+        super();
+        registerFunction(COUNT_OVER, new SQLFunctionTemplate(StandardBasicTypes.LONG, "count(*) over()"));
+    }
+}
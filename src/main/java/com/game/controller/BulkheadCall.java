@@ -0,0 +1,36 @@
+package com.game.controller;
+
+import com.game.service.Bulkheads;
+
+import java.util.concurrent.Callable;
+
+/**
+ * The work of a handler method that waits on the database. It runs on the threads of its bulkhead
+ * when bulkheads are enabled and on the request thread otherwise, and its result is written as if
+ * the method had returned it; see {@code BulkheadReturnValueHandler}.
+ */
+public final class BulkheadCall<T> {
+    private final Bulkheads.Kind kind;
+    private final Callable<T> work;
+
+    private BulkheadCall(Bulkheads.Kind kind, Callable<T> work) {
+        this.kind = kind;
+        this.work = work;
+    }
+
+    static <T> BulkheadCall<T> read(Callable<T> work) {
+        return new BulkheadCall<>(Bulkheads.Kind.READS, work);
+    }
+
+    static <T> BulkheadCall<T> write(Callable<T> work) {
+        return new BulkheadCall<>(Bulkheads.Kind.WRITES, work);
+    }
+
+    public Bulkheads.Kind getKind() {
+        return kind;
+    }
+
+    public Callable<T> getWork() {
+        return work;
+    }
+}
@@ -0,0 +1,104 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.game.entity.Player;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+public enum ExportFormat {
+    //one JSON object per line, as the player endpoints write it
+    NDJSON("application/x-ndjson") {
+        @Override
+        RowWriter open(OutputStream out, ObjectMapper mapper) throws IOException {
+            ObjectWriter writer = mapper.writerFor(Player.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            JsonGenerator generator = mapper.getFactory().createGenerator(out);
+            return new RowWriter() {
+                @Override
+                public void write(Player player) throws IOException {
+                    writer.writeValue(generator, player);
+                    generator.writeRaw('\n');
+                }
+
+                @Override
+                public void close() throws IOException {
+                    generator.close();
+                }
+            };
+        }
+    },
+    //RFC 4180 with a header row, birthday in epoch millis like the JSON
+    CSV("text/csv;charset=UTF-8") {
+        @Override
+        RowWriter open(OutputStream out, ObjectMapper mapper) throws IOException {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192);
+            writer.write("id,name,title,race,profession,birthday,banned,experience,level,untilNextLevel\r\n");
+            return new RowWriter() {
+                @Override
+                public void write(Player player) throws IOException {
+                    writer.write(String.valueOf(player.getId()));
+                    writer.write(',');
+                    writeText(writer, player.getName());
+                    writer.write(',');
+                    writeText(writer, player.getTitle());
+                    writer.write(',');
+                    writer.write(player.getRace() == null ? "" : player.getRace().name());
+                    writer.write(',');
+                    writer.write(player.getProfession() == null ? "" : player.getProfession().name());
+                    writer.write(',');
+                    writer.write(player.getBirthday() == null ? "" : String.valueOf(player.getBirthday().getTime()));
+                    writer.write(',');
+                    writer.write(player.isBanned() == null ? "" : String.valueOf(player.isBanned()));
+                    writer.write(',');
+                    writer.write(player.getExperience() == null ? "" : String.valueOf(player.getExperience()));
+                    writer.write(',');
+                    writer.write(player.getLevel() == null ? "" : String.valueOf(player.getLevel()));
+                    writer.write(',');
+                    writer.write(player.getUntilNextLevel() == null ? "" : String.valueOf(player.getUntilNextLevel()));
+                    writer.write("\r\n");
+                }
+
+                @Override
+                public void close() throws IOException {
+                    writer.close();
+                }
+            };
+        }
+    };
+
+    private final MediaType mediaType;
+
+    ExportFormat(String mediaType) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    abstract RowWriter open(OutputStream out, ObjectMapper mapper) throws IOException;
+
+    private static void writeText(Writer writer, String text) throws IOException {
+        if (text == null) return;
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    interface RowWriter extends Closeable {
+        void write(Player player) throws IOException;
+    }
+}
@@ -0,0 +1,204 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.exceptions.InvalidRequestException;
+import com.game.service.PlayerReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public enum ImportFormat {
+    //one player per line in the JSON of POST /rest/players, blank lines are skipped
+    NDJSON {
+        @Override
+        PlayerReader open(InputStream in, ObjectMapper mapper) {
+            ObjectReader reader = mapper.readerFor(Player.class);
+            BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 65536);
+            return new PlayerReader() {
+                @Override
+                public Player next() throws IOException {
+                    String line = lines.readLine();
+                    while (line != null && line.trim().isEmpty()) line = lines.readLine();
+                    if (line == null) return null;
+
+                    try {
+                        Player player = reader.readValue(line);
+                        if (player == null) throw new InvalidRequestException("Invalid player");
+                        return player;
+                    } catch (JsonProcessingException e) {
+                        throw new InvalidRequestException("Invalid JSON: " + e.getOriginalMessage());
+                    }
+                }
+
+                @Override
+                public void close() throws IOException {
+                    lines.close();
+                }
+            };
+        }
+    },
+    //RFC 4180 with a header row naming the columns, as GET /rest/players/export?format=CSV writes it;
+    //id, level and untilNextLevel are ignored
+    CSV {
+        @Override
+        PlayerReader open(InputStream in, ObjectMapper mapper) throws IOException {
+            CsvRecords records = new CsvRecords(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 65536));
+            List<String> header = records.next();
+            if (header == null) throw new InvalidRequestException("Missing CSV header");
+
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim(), i);
+            }
+            int name = column(columns, "name");
+            int title = column(columns, "title");
+            int race = column(columns, "race");
+            int profession = column(columns, "profession");
+            int birthday = column(columns, "birthday");
+            int experience = column(columns, "experience");
+            Integer banned = columns.get("banned");
+
+            return new PlayerReader() {
+                @Override
+                public Player next() throws IOException {
+                    List<String> record = records.next();
+                    if (record == null) return null;
+                    if (record.size() != header.size()) throw new InvalidRequestException("Invalid number of columns");
+
+                    Player player = new Player();
+                    player.setName(record.get(name));
+                    player.setTitle(record.get(title));
+                    player.setRace(parseEnum(Race.class, record.get(race)));
+                    player.setProfession(parseEnum(Profession.class, record.get(profession)));
+                    player.setBirthday(record.get(birthday).isEmpty() ? null : new Date(parseLong(record.get(birthday))));
+                    if (!record.get(experience).isEmpty()) player.setExperience(parseInt(record.get(experience)));
+                    if (banned != null && !record.get(banned).isEmpty()) player.setBanned(parseBoolean(record.get(banned)));
+                    return player;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    records.close();
+                }
+            };
+        }
+    };
+
+    abstract PlayerReader open(InputStream in, ObjectMapper mapper) throws IOException;
+
+    private static int column(Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null) throw new InvalidRequestException("Missing CSV column " + name);
+        return index;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        if (value.isEmpty()) return null;
+        try {
+            return Enum.valueOf(type, value);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid " + type.getSimpleName().toLowerCase());
+        }
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("Invalid number " + value);
+        }
+    }
+
+    private static int parseInt(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("Invalid number " + value);
+        }
+    }
+
+    private static boolean parseBoolean(String value) {
+        if ("true".equals(value)) return true;
+        if ("false".equals(value)) return false;
+        throw new InvalidRequestException("Invalid banned");
+    }
+
+    //records of RFC 4180 CSV, quoted fields may contain commas, quotes and line breaks
+    private static class CsvRecords {
+        private final Reader reader;
+        private final StringBuilder field = new StringBuilder();
+        private int lookahead = -2;
+
+        CsvRecords(Reader reader) {
+            this.reader = reader;
+        }
+
+        List<String> next() throws IOException {
+            int c = read();
+            if (c == -1) return null;
+
+            List<String> record = new ArrayList<>();
+            boolean quoted = false;
+            field.setLength(0);
+            while (true) {
+                if (quoted) {
+                    if (c == -1) throw new InvalidRequestException("Unterminated quoted field");
+                    if (c == '"') {
+                        int after = read();
+                        if (after == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = after;
+                            continue;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    record.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\r' || c == '\n' || c == -1) {
+                    if (c == '\r') {
+                        int after = read();
+                        if (after != '\n') lookahead = after;
+                    }
+                    record.add(field.toString());
+                    return record;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+
+        void close() throws IOException {
+            reader.close();
+        }
+
+        private int read() throws IOException {
+            if (lookahead != -2) {
+                int c = lookahead;
+                lookahead = -2;
+                return c;
+            }
+            return reader.read();
+        }
+    }
+}
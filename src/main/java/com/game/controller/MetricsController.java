@@ -0,0 +1,44 @@
+package com.game.controller;
+
+import com.game.exceptions.DataNotFoundException;
+import com.game.metrics.MetricsSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+@RequestMapping("/rest/metrics")
+public class MetricsController {
+    private final List<MetricsSource> sources;
+
+    @Autowired
+    public MetricsController(List<MetricsSource> sources) {
+        this.sources = sources;
+    }
+
+    //get all metrics
+    @GetMapping
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getAll() {
+        Map<String, Object> response = new TreeMap<>();
+        for (MetricsSource source : sources) {
+            response.put(source.getName(), source.snapshot());
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    //get metrics group by name
+    @GetMapping("/{name}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getByName(@PathVariable(name = "name") String name) {
+        return sources.stream()
+                .filter(source -> source.getName().equals(name))
+                .findFirst()
+                .map(source -> ResponseEntity.ok(source.snapshot()))
+                .orElseThrow(() -> new DataNotFoundException("No metrics with name:" + name));
+    }
+}
@@ -1,111 +1,348 @@
 package com.game.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.dto.BatchCreateResult;
+import com.game.dto.ExperienceAward;
+import com.game.dto.ImportResult;
+import com.game.dto.PlayerPage;
+import com.game.dto.PlayerPatch;
+import com.game.dto.PlayerProgress;
+import com.game.dto.PlayerSlice;
 import com.game.entity.Player;
-import com.game.entity.Profession;
-import com.game.entity.Race;
+import com.game.exceptions.DataNotFoundException;
+import com.game.exceptions.InvalidRequestException;
+import com.game.exceptions.PreconditionFailedException;
+import com.game.service.PlayerCursor;
+import com.game.service.PlayerFields;
+import com.game.service.PlayerFilter;
+import com.game.service.PlayerImporter;
+import com.game.service.PlayerReader;
 import com.game.service.PlayerService;
+import com.game.service.PlayerVersions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/rest")
 public class PlayerController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String RETURN_MINIMAL = "return=minimal";
+    static final String HANDLING_LENIENT = "handling=lenient";
+    private static final String PREFERENCE_APPLIED = "Preference-Applied";
+
     private final PlayerService playerService;
+    private final PlayerImporter playerImporter;
+    private final ObjectMapper objectMapper;
+    private final PlayerVersions playerVersions;
 
     @Autowired
-    public PlayerController(PlayerService playerService) {
+    public PlayerController(PlayerService playerService, PlayerImporter playerImporter, ObjectMapper objectMapper,
+                            PlayerVersions playerVersions) {
         this.playerService = playerService;
+        this.playerImporter = playerImporter;
+        this.objectMapper = objectMapper;
+        this.playerVersions = playerVersions;
     }
 
-    //get all players
+    //get all players, by page number or, when a cursor is given (empty for the first page), by keyset
     @GetMapping(value = "/players")
     @ResponseBody
-    public List<Player> readAllPlayers(@RequestParam(value = "name", required = false) String name,
-                                       @RequestParam(value = "title", required = false) String title,
-                                       @RequestParam(value = "race", required = false) Race race,
-                                       @RequestParam(value = "profession", required = false) Profession profession,
-                                       @RequestParam(value = "after", required = false) Long after,
-                                       @RequestParam(value = "before", required = false) Long before,
-                                       @RequestParam(value = "banned", required = false) Boolean banned,
-                                       @RequestParam(value = "minExperience", required = false) Integer minExperience,
-                                       @RequestParam(value = "maxExperience", required = false) Integer maxExperience,
-                                       @RequestParam(value = "minLevel", required = false) Integer minLevel,
-                                       @RequestParam(value = "maxLevel", required = false) Integer maxLevel,
-                                       @RequestParam(value = "pageNumber", defaultValue = "0") Integer pageNumber,
-                                       @RequestParam(value = "pageSize", defaultValue = "3") Integer pageSize,
-                                       @RequestParam(value = "order", required = false, defaultValue = "ID") PlayerOrder playerOrder) {
+    public BulkheadCall<ResponseEntity<List<Player>>> readAllPlayers(PlayerFilter filter,
+                                                                     @RequestParam(value = "pageNumber", defaultValue = "0") Integer pageNumber,
+                                                                     @RequestParam(value = "pageSize", defaultValue = "3") Integer pageSize,
+                                                                     @RequestParam(value = "order", required = false, defaultValue = "ID") PlayerOrder playerOrder,
+                                                                     @RequestParam(value = "cursor", required = false) String cursor,
+                                                                     WebRequest request) {
+        if (listNotModified(request)) return null;
+        if (cursor == null) {
+            Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by(playerOrder.getFieldName()));
+            return BulkheadCall.read(() -> ResponseEntity.ok(playerService.getPlayersSlice(filter, pageable).getContent()));
+        }
+
+        PlayerCursor current = cursor.isEmpty()
+                ? PlayerCursor.start(playerOrder.getFieldName())
+                : PlayerCursor.decode(cursor);
+        if (!current.getFieldName().equals(playerOrder.getFieldName()))
+            throw new InvalidRequestException("Cursor does not match order");
+
+        return BulkheadCall.read(() -> {
+            Slice<Player> slice = playerService.getPlayersSlice(filter, current, pageSize);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (slice.hasNext()) {
+                List<Player> content = slice.getContent();
+                Player last = content.get(content.size() - 1);
+                response.header(NEXT_CURSOR_HEADER, PlayerCursor.after(last, playerOrder.getFieldName()).encode());
+            }
+            return response.body(slice.getContent());
+        });
+    }
+
+    //get only the named fields of a page of players, e.g. fields=id,name,level for a leaderboard
+    @GetMapping(value = "/players", params = "fields")
+    @ResponseBody
+    public BulkheadCall<List<Map<String, Object>>> readPlayersFields(PlayerFilter filter,
+                                                                     @RequestParam(value = "pageNumber", defaultValue = "0") Integer pageNumber,
+                                                                     @RequestParam(value = "pageSize", defaultValue = "3") Integer pageSize,
+                                                                     @RequestParam(value = "order", required = false, defaultValue = "ID") PlayerOrder playerOrder,
+                                                                     @RequestParam(value = "fields") String fields,
+                                                                     @RequestParam(value = "cursor", required = false) String cursor,
+                                                                     WebRequest request) {
+        if (cursor != null) throw new InvalidRequestException("Fields cannot be combined with a cursor");
+        PlayerFields parsed = PlayerFields.parse(fields);
+        if (listNotModified(request)) return null;
+        Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by(playerOrder.getFieldName()));
 
+        return BulkheadCall.read(() -> playerService.getPlayersFields(filter, pageable, parsed));
+    }
+
+    //get one page of players together with the total count
+    @GetMapping(value = "/players/page")
+    @ResponseBody
+    public BulkheadCall<PlayerPage> readPlayersPage(PlayerFilter filter,
+                                                    @RequestParam(value = "pageNumber", defaultValue = "0") Integer pageNumber,
+                                                    @RequestParam(value = "pageSize", defaultValue = "3") Integer pageSize,
+                                                    @RequestParam(value = "order", required = false, defaultValue = "ID") PlayerOrder playerOrder,
+                                                    WebRequest request) {
+        if (listNotModified(request)) return null;
         Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by(playerOrder.getFieldName()));
 
-        return playerService.getAllPlayers(Specification.where(playerService.filterByName(name))
-                .and(playerService.filterByTitle(title))
-                .and(playerService.filterByRace(race))
-                .and(playerService.filterByProfession(profession))
-                .and(playerService.filterByExperience(minExperience, maxExperience))
-                .and(playerService.filterByLevel(minLevel, maxLevel))
-                .and(playerService.filterByBirthday(after, before))
-                .and(playerService.filterByBanned(banned)), pageable).getContent();
+        return BulkheadCall.read(() -> playerService.getPlayersPage(filter, pageable));
+    }
+
+    //get one page of players with a hasNext flag and no count
+    @GetMapping(value = "/players/slice")
+    @ResponseBody
+    public BulkheadCall<PlayerSlice> readPlayersSlice(PlayerFilter filter,
+                                                      @RequestParam(value = "pageNumber", defaultValue = "0") Integer pageNumber,
+                                                      @RequestParam(value = "pageSize", defaultValue = "3") Integer pageSize,
+                                                      @RequestParam(value = "order", required = false, defaultValue = "ID") PlayerOrder playerOrder,
+                                                      WebRequest request) {
+        if (listNotModified(request)) return null;
+        Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by(playerOrder.getFieldName()));
 
+        return BulkheadCall.read(() -> new PlayerSlice(playerService.getPlayersSlice(filter, pageable)));
+    }
+
+    //export all matching players as NDJSON or CSV, written row by row as they are read
+    @GetMapping("/players/export")
+    public ResponseEntity<StreamingResponseBody> exportPlayers(PlayerFilter filter,
+                                                               @RequestParam(value = "format", defaultValue = "NDJSON") ExportFormat format,
+                                                               @RequestParam(value = "order", required = false, defaultValue = "ID") PlayerOrder playerOrder) {
+        //ties are broken by id so the order is stable
+        Sort sort = Sort.by(playerOrder.getFieldName());
+        if (playerOrder != PlayerOrder.ID) sort = sort.and(Sort.by(PlayerOrder.ID.getFieldName()));
+        Sort order = sort;
+
+        StreamingResponseBody body = out -> {
+            try (ExportFormat.RowWriter writer = format.open(out, objectMapper)) {
+                playerService.exportPlayers(filter, order, player -> {
+                    try {
+                        writer.write(player);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(format.getMediaType()).body(body);
     }
 
     //get players count
     @GetMapping("/players/count")
     @ResponseBody
-    public Long getCount(@RequestParam(value = "name", required = false) String name,
-                         @RequestParam(value = "title", required = false) String title,
-                         @RequestParam(value = "race", required = false) Race race,
-                         @RequestParam(value = "profession", required = false) Profession profession,
-                         @RequestParam(value = "after", required = false) Long after,
-                         @RequestParam(value = "before", required = false) Long before,
-                         @RequestParam(value = "banned", required = false) Boolean banned,
-                         @RequestParam(value = "minExperience", required = false) Integer minExperience,
-                         @RequestParam(value = "maxExperience", required = false) Integer maxExperience,
-                         @RequestParam(value = "minLevel", required = false) Integer minLevel,
-                         @RequestParam(value = "maxLevel", required = false) Integer maxLevel) {
-        return playerService.getPlayersCount(Specification.where(playerService.filterByName(name))
-                .and(playerService.filterByTitle(title))
-                .and(playerService.filterByRace(race))
-                .and(playerService.filterByProfession(profession))
-                .and(playerService.filterByExperience(minExperience, maxExperience))
-                .and(playerService.filterByLevel(minLevel, maxLevel))
-                .and(playerService.filterByBirthday(after, before))
-                .and(playerService.filterByBanned(banned))
-        );
+    public BulkheadCall<Long> getCount(PlayerFilter filter, WebRequest request) {
+        if (listNotModified(request)) return null;
+        return BulkheadCall.read(() -> playerService.getPlayersCount(filter));
     }
 
     //create player
     @PostMapping(value = "/players")
     @ResponseBody
-    public ResponseEntity<?> addNewPlayer(@RequestBody Player player) {
-        return ResponseEntity.ok(playerService.createPlayer(player));
+    public BulkheadCall<ResponseEntity<?>> addNewPlayer(@RequestBody Player player) {
+        return BulkheadCall.write(() -> ResponseEntity.ok(playerService.createPlayer(player)));
     }
 
+    //create many players, rejected ones are reported per item
+    @PostMapping(value = "/players/batch")
+    @ResponseBody
+    public BulkheadCall<BatchCreateResult> addNewPlayers(@RequestBody List<Player> players) {
+        return BulkheadCall.write(() -> playerService.createPlayers(players));
+    }
+
+    //create players from an NDJSON or CSV body of any size, read and written chunk by chunk. Stays on the
+    //request thread: it reads the upload, which may take minutes, while the importer's own writers, bounded
+    //by import.maxConcurrent, hold the connections; a bulkhead thread would be taken from the short writes
+    @PostMapping("/players/import")
+    @ResponseBody
+    public ImportResult importPlayers(@RequestParam(value = "format", defaultValue = "NDJSON") ImportFormat format,
+                                      InputStream body) throws IOException {
+        try (PlayerReader reader = format.open(body, objectMapper)) {
+            ImportResult result = playerImporter.importPlayers(reader);
+            if (result.getFailed() > 0) result.setErrors("/rest/players/import/" + result.getId() + "/errors");
+            return result;
+        }
+    }
+
+    //the rows an import rejected, as CSV
+    @GetMapping("/players/import/{id}/errors")
+    public ResponseEntity<StreamingResponseBody> getImportErrors(@PathVariable(name = "id") String id) {
+        Path file = playerImporter.errors(id)
+                .orElseThrow(() -> new DataNotFoundException("No errors for import:" + id));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/csv;charset=UTF-8"))
+                .body(out -> Files.copy(file, out));
+    }
+
+    @GetMapping(value = "/players/{id}", params = "fields")
+    @ResponseBody
+    public BulkheadCall<Map<String, Object>> getPlayerFields(@PathVariable(name = "id") Long id,
+                                                             @RequestParam(value = "fields") String fields) {
+        PlayerFields parsed = PlayerFields.parse(fields);
+        return BulkheadCall.read(() -> playerService.getPlayerFields(id, parsed));
+    }
+
+    //a revalidation of a player whose version is known is answered without reading it
     @GetMapping("/players/{id}")
     @ResponseBody
-    public ResponseEntity<Player> getPlayerByID(@PathVariable(name = "id") Long id) {
-        return ResponseEntity.ok(playerService.getPlayerByID(id));
+    public BulkheadCall<ResponseEntity<Player>> getPlayerByID(@PathVariable(name = "id") Long id,
+                                                              @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+                                                              WebRequest request) {
+        return BulkheadCall.read(() -> {
+            //the version lookup is a query too, so it waits on the bulkhead; 304 is set on the response
+            if (ifNoneMatch != null) {
+                Long version = playerService.getKnownVersion(id);
+                if (version != null && request.checkNotModified(eTag(version))) return null;
+            }
+            Player player = playerService.getPlayerByID(id);
+            return ResponseEntity.ok().eTag(eTag(player)).body(player);
+        });
     }
 
-    //update player
+    //update player, with If-Match only at that version: a player changed in between is answered with 412
     @PostMapping("/players/{id}")
     @ResponseBody
-    public ResponseEntity<Player> updatePlayer(@RequestBody Player player, @PathVariable(name = "id") Long id) {
-        return ResponseEntity.ok(playerService.updatePlayer(player, id));
+    public BulkheadCall<ResponseEntity<Player>> updatePlayer(@RequestBody Player player, @PathVariable(name = "id") Long id,
+                                                             @RequestHeader(value = "Prefer", required = false) String prefer,
+                                                             @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        Long expectedVersion = expectedVersion(ifMatch);
+
+        //the client does not need the new state, so the row is not read back
+        if (prefers(prefer, RETURN_MINIMAL)) {
+            return BulkheadCall.write(() -> {
+                if (!playerService.updatePlayerFields(player, id, expectedVersion)) playerService.getPlayerByID(id);
+                return ResponseEntity.noContent().header(PREFERENCE_APPLIED, RETURN_MINIMAL).build();
+            });
+        }
+
+        return BulkheadCall.write(() -> {
+            Player updated = playerService.updatePlayer(player, id, expectedVersion);
+            return ResponseEntity.ok().eTag(eTag(updated)).body(updated);
+        });
+    }
+
+    //grant (or take away) experience in one statement, returns the new experience and level; with If-Match
+    //only at that version, or with Prefer: handling=lenient re-applied at the current version on a conflict
+    @PostMapping("/players/{id}/experience")
+    @ResponseBody
+    public BulkheadCall<ResponseEntity<PlayerProgress>> awardExperience(@PathVariable(name = "id") Long id,
+                                                                        @RequestBody ExperienceAward award,
+                                                                        @RequestHeader(value = "Prefer", required = false) String prefer,
+                                                                        @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        Long expectedVersion = expectedVersion(ifMatch);
+        boolean lenient = expectedVersion != null && prefers(prefer, HANDLING_LENIENT);
+
+        return BulkheadCall.write(() -> {
+            PlayerProgress progress = playerService.awardExperience(id, award.getDelta(), expectedVersion, lenient);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (lenient) response.header(PREFERENCE_APPLIED, HANDLING_LENIENT);
+            return response.body(progress);
+        });
+    }
+
+    //update every player matching the filter, returns the number of updated players
+    @PostMapping("/players/bulk")
+    @ResponseBody
+    public BulkheadCall<Long> updatePlayers(PlayerFilter filter, @RequestBody PlayerPatch patch) {
+        return BulkheadCall.write(() -> playerService.updatePlayers(filter, patch));
+    }
+
+    //delete every player matching the filter, returns the number of deleted players
+    @DeleteMapping("/players/bulk")
+    @ResponseBody
+    public BulkheadCall<Long> deletePlayers(PlayerFilter filter) {
+        return BulkheadCall.write(() -> playerService.deletePlayers(filter));
+    }
+
+    //delete players by id, returns the number of deleted players
+    @DeleteMapping("/players")
+    @ResponseBody
+    public BulkheadCall<Long> deletePlayers(@RequestParam("ids") List<Long> ids) {
+        return BulkheadCall.write(() -> playerService.deletePlayers(ids));
     }
 
     //delete player
     @DeleteMapping("/players/{id}")
     @ResponseBody
-    public ResponseEntity<Map<String, Boolean>> deletePlayer(@PathVariable(name = "id") Long id) {
-        return ResponseEntity.ok(playerService.deletePlayer(id));
+    public BulkheadCall<ResponseEntity<Map<String, Boolean>>> deletePlayer(@PathVariable(name = "id") Long id) {
+        return BulkheadCall.write(() -> ResponseEntity.ok(playerService.deletePlayer(id)));
+    }
+
+    private static String eTag(Player player) {
+        return eTag(player.getVersion());
+    }
+
+    private static String eTag(Long version) {
+        return "\"" + version + "\"";
     }
 
+    //lists and counts share one tag that changes with every committed write, checked before any query;
+    //true when the response is a 304 already
+    private boolean listNotModified(WebRequest request) {
+        if (!playerVersions.isListsEnabled()) return false;
+        return request.checkNotModified(playerVersions.listTag(), playerVersions.lastModified());
+    }
+
+    //the version named by If-Match, null for none or *
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) return null;
+
+        String tag = ifMatch.trim();
+        //If-Match compares strongly, so a weak tag never matches
+        if (tag.startsWith("W/")) throw new PreconditionFailedException("Weak entity tag");
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"')
+            throw new InvalidRequestException("Invalid If-Match");
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("Unknown entity tag");
+        }
+    }
+
+    private static boolean prefers(String prefer, String preference) {
+        if (prefer == null) return false;
+        for (String token : prefer.split(",")) {
+            int parameters = token.indexOf(';');
+            String name = parameters < 0 ? token : token.substring(0, parameters);
+            if (name.trim().equalsIgnoreCase(preference)) return true;
+        }
+        return false;
+    }
 }
@@ -0,0 +1,64 @@
+package com.game.dto;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Outcome of a batch create: one item per submitted player, in request order, carrying either
+ * the new id or the reason the player was rejected.
+ */
+public class BatchCreateResult {
+    private int created;
+    private int failed;
+    private final Item[] items;
+
+    public BatchCreateResult(int size) {
+        this.items = new Item[size];
+    }
+
+    public void created(int index, long id) {
+        items[index] = new Item(index, id, null);
+        created++;
+    }
+
+    public void failed(int index, String error) {
+        items[index] = new Item(index, null, error);
+        failed++;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public List<Item> getItems() {
+        return Arrays.asList(items);
+    }
+
+    public static class Item {
+        private final int index;
+        private final Long id;
+        private final String error;
+
+        Item(int index, Long id, String error) {
+            this.index = index;
+            this.id = id;
+            this.error = error;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.game.dto;
+
+/**
+ * Experience granted to one player, negative to take it away.
+ */
+public class ExperienceAward {
+    private Integer delta;
+
+    public Integer getDelta() {
+        return delta;
+    }
+
+    public void setDelta(Integer delta) {
+        this.delta = delta;
+    }
+}
@@ -0,0 +1,49 @@
+package com.game.dto;
+
+/**
+ * Outcome of a streaming import. Rejected rows are listed in the errors file, if there are any.
+ */
+public class ImportResult {
+    private final String id;
+    private final long rows;
+    private final long created;
+    private final long failed;
+    private String errors;
+    private final long elapsedMillis;
+
+    public ImportResult(String id, long rows, long created, long failed, long elapsedMillis) {
+        this.id = id;
+        this.rows = rows;
+        this.created = created;
+        this.failed = failed;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public String getErrors() {
+        return errors;
+    }
+
+    public void setErrors(String errors) {
+        this.errors = errors;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
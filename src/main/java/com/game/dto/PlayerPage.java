@@ -0,0 +1,38 @@
+package com.game.dto;
+
+import com.game.entity.Player;
+
+import java.util.List;
+
+/**
+ * One page of players together with the total number of players matching the filter.
+ */
+public class PlayerPage {
+    private final List<Player> content;
+    private final long total;
+    private final int pageNumber;
+    private final int pageSize;
+
+    public PlayerPage(List<Player> content, long total, int pageNumber, int pageSize) {
+        this.content = content;
+        this.total = total;
+        this.pageNumber = pageNumber;
+        this.pageSize = pageSize;
+    }
+
+    public List<Player> getContent() {
+        return content;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public int getPageNumber() {
+        return pageNumber;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+}
@@ -0,0 +1,35 @@
+package com.game.dto;
+
+/**
+ * Changes applied to every player matched by a bulk update. Experience is either set or shifted
+ * by a delta; level and untilNextLevel follow from it.
+ */
+public class PlayerPatch {
+    private Boolean banned;
+    private Integer experience;
+    private Integer experienceDelta;
+
+    public Boolean getBanned() {
+        return banned;
+    }
+
+    public void setBanned(Boolean banned) {
+        this.banned = banned;
+    }
+
+    public Integer getExperience() {
+        return experience;
+    }
+
+    public void setExperience(Integer experience) {
+        this.experience = experience;
+    }
+
+    public Integer getExperienceDelta() {
+        return experienceDelta;
+    }
+
+    public void setExperienceDelta(Integer experienceDelta) {
+        this.experienceDelta = experienceDelta;
+    }
+}
@@ -0,0 +1,34 @@
+package com.game.dto;
+
+/**
+ * A player's experience, level and experience left to the next level after an award.
+ */
+public class PlayerProgress {
+    private final long id;
+    private final int experience;
+    private final int level;
+    private final int untilNextLevel;
+
+    public PlayerProgress(long id, int experience, int level, int untilNextLevel) {
+        this.id = id;
+        this.experience = experience;
+        this.level = level;
+        this.untilNextLevel = untilNextLevel;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getExperience() {
+        return experience;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getUntilNextLevel() {
+        return untilNextLevel;
+    }
+}
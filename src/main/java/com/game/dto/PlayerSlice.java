@@ -0,0 +1,39 @@
+package com.game.dto;
+
+import com.game.entity.Player;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * One page of players without a total, for clients that only need to know whether more rows follow.
+ */
+public class PlayerSlice {
+    private final List<Player> content;
+    private final int pageNumber;
+    private final int pageSize;
+    private final boolean hasNext;
+
+    public PlayerSlice(Slice<Player> slice) {
+        this.content = slice.getContent();
+        this.pageNumber = slice.getNumber();
+        this.pageSize = slice.getSize();
+        this.hasNext = slice.hasNext();
+    }
+
+    public List<Player> getContent() {
+        return content;
+    }
+
+    public int getPageNumber() {
+        return pageNumber;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+}
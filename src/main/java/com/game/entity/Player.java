@@ -1,14 +1,26 @@
 package com.game.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+
 import javax.persistence.*;
 import java.util.Date;
 import java.util.Objects;
 
 @Entity
 @Table(name = "player")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Player.CACHE_REGION)
 public class Player {
+    public static final String CACHE_REGION = "player";
+    public static final int MIN_EXPERIENCE = 0;
+    public static final int MAX_EXPERIENCE = 10000000;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "player-id")
+    @GenericGenerator(name = "player-id", strategy = "com.game.repository.BlockIdGenerator")
     @Column(nullable = false)
     private Long id;
 
@@ -26,12 +38,18 @@ public class Player {
     private Integer level;
     private Integer untilNextLevel;
 
+    //sent as the ETag of /rest/players/{id}, never in the body
+    @Version
+    @JsonIgnore
+    @Column(nullable = false)
+    private Long version;
+
 
     public Player() {
     }
 
-    public Player(Long id, String name, String title, Race race, Profession profession, int experience, int level,
-                  int untilNextLevel, Date birthday, Boolean banned) {
+    public Player(Long id, String name, String title, Race race, Profession profession, Integer experience, Integer level,
+                  Integer untilNextLevel, Date birthday, Boolean banned) {
         this.id = id;
         this.name = name;
         this.title = title;
@@ -88,23 +106,23 @@ public class Player {
         return experience;
     }
 
-    public void setExperience(int experience) {
+    public void setExperience(Integer experience) {
         this.experience = experience;
     }
 
-    public int getLevel() {
+    public Integer getLevel() {
         return level;
     }
 
-    public void setLevel(int level) {
+    public void setLevel(Integer level) {
         this.level = level;
     }
 
-    public int getUntilNextLevel() {
+    public Integer getUntilNextLevel() {
         return untilNextLevel;
     }
 
-    public void setUntilNextLevel(int untilNextLevel) {
+    public void setUntilNextLevel(Integer untilNextLevel) {
         this.untilNextLevel = untilNextLevel;
     }
 
@@ -124,6 +142,14 @@ public class Player {
         this.banned = banned;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,59 @@
+package com.game.metrics;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Second-level and query cache statistics collected by Hibernate.
+ */
+@Component
+public class HibernateCacheMetrics implements MetricsSource {
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    public HibernateCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public String getName() {
+        return "hibernate-cache";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", statistics.isStatisticsEnabled());
+        snapshot.put("secondLevelHits", statistics.getSecondLevelCacheHitCount());
+        snapshot.put("secondLevelMisses", statistics.getSecondLevelCacheMissCount());
+        snapshot.put("secondLevelPuts", statistics.getSecondLevelCachePutCount());
+        snapshot.put("queryHits", statistics.getQueryCacheHitCount());
+        snapshot.put("queryMisses", statistics.getQueryCacheMissCount());
+        snapshot.put("queryPuts", statistics.getQueryCachePutCount());
+        snapshot.put("entityLoads", statistics.getEntityLoadCount());
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) continue;
+
+            Map<String, Object> regionSnapshot = new LinkedHashMap<>();
+            regionSnapshot.put("hits", region.getHitCount());
+            regionSnapshot.put("misses", region.getMissCount());
+            regionSnapshot.put("puts", region.getPutCount());
+            regionSnapshot.put("size", region.getElementCountInMemory());
+            regions.put(regionName, regionSnapshot);
+        }
+        snapshot.put("regions", regions);
+        return snapshot;
+    }
+}
@@ -0,0 +1,12 @@
+package com.game.metrics;
+
+import java.util.Map;
+
+/**
+ * A named group of runtime metrics published under {@code /rest/metrics/{name}}.
+ */
+public interface MetricsSource {
+    String getName();
+
+    Map<String, Object> snapshot();
+}
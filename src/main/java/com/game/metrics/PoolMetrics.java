@@ -0,0 +1,83 @@
+package com.game.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects connection pool metrics reported by HikariCP.
+ */
+@Component
+public class PoolMetrics implements MetricsTrackerFactory, MetricsSource {
+    private final LatencyHistogram acquireLatency = new LatencyHistogram();
+    private final LatencyHistogram usageTime = new LatencyHistogram();
+    private final LatencyHistogram creationTime = new LatencyHistogram();
+    private final LongAdder timeouts = new LongAdder();
+
+    private volatile String poolName;
+    private volatile PoolStats poolStats;
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolName = poolName;
+        this.poolStats = poolStats;
+
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionCreatedMillis(long millis) {
+                creationTime.record(TimeUnit.MILLISECONDS.toNanos(millis));
+            }
+
+            @Override
+            public void recordConnectionAcquiredNanos(long nanos) {
+                acquireLatency.record(nanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long millis) {
+                usageTime.record(TimeUnit.MILLISECONDS.toNanos(millis));
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    @Override
+    public String getName() {
+        return "pool";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        PoolStats stats = poolStats;
+        if (stats == null) {
+            result.put("pooled", false);
+            return result;
+        }
+
+        result.put("pooled", true);
+        result.put("poolName", poolName);
+        result.put("active", stats.getActiveConnections());
+        result.put("idle", stats.getIdleConnections());
+        result.put("total", stats.getTotalConnections());
+        result.put("waitingThreads", stats.getPendingThreads());
+        result.put("minConnections", stats.getMinConnections());
+        result.put("maxConnections", stats.getMaxConnections());
+        result.put("timeouts", timeouts.sum());
+        result.put("acquireLatency", acquireLatency.snapshot());
+        result.put("usageTime", usageTime.snapshot());
+        result.put("creationTime", creationTime.snapshot());
+
+        return result;
+    }
+}
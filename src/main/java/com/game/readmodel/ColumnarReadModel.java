@@ -0,0 +1,387 @@
+package com.game.readmodel;
+
+import com.game.dto.PlayerPage;
+import com.game.entity.Player;
+import com.game.metrics.LatencyHistogram;
+import com.game.metrics.MetricsSource;
+import com.game.repository.PlayerRepository;
+import com.game.service.PlayerFilter;
+import com.game.service.PlayersChangedEvent;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional in-memory read engine for the player list and count queries. Keeps a columnar copy of
+ * the {@code player} table, answers enum and banned filters from per-value bitmaps and runs range
+ * and name/title filters as parallel fork/join scans. Writes made through {@link com.game.service.PlayerService}
+ * are applied once their transaction commits.
+ * <p>
+ * Name and title filters are case-sensitive substring matches and names sort in Java string order,
+ * as on the H2 dev database. MySQL compares them in the table's case-insensitive collation, so the
+ * model is for dev only and refuses to start under the prod profile.
+ */
+@Component
+public class ColumnarReadModel implements MetricsSource, InitializingBean, DisposableBean {
+    private static final int WORDS_PER_TASK = 64;
+
+    private final boolean enabled;
+    private final PlayerRepository playerRepository;
+    private final TransactionTemplate readTransaction;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final PlayerColumns columns = new PlayerColumns();
+    private final LatencyHistogram queryLatency = new LatencyHistogram();
+    private final AtomicInteger reloading = new AtomicInteger();
+    private final LongAdder staleReloads = new LongAdder();
+    private ForkJoinPool scanPool;
+
+    @Autowired
+    public ColumnarReadModel(@Value("${readmodel.columnar.enabled:false}") boolean enabled,
+                             PlayerRepository playerRepository, PlatformTransactionManager transactionManager,
+                             Environment environment) {
+        if (enabled && environment.acceptsProfiles(Profiles.of("prod")))
+            throw new IllegalStateException("readmodel.columnar.enabled is for the H2 dev database only,"
+                    + " its name filters and order do not follow the MySQL collation");
+        this.enabled = enabled;
+        this.playerRepository = playerRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        load();
+    }
+
+    public void load() {
+        if (!enabled) return;
+
+        scanPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        List<Player> players = readTransaction.execute(status -> playerRepository.findAll());
+
+        lock.writeLock().lock();
+        try {
+            columns.clear();
+            players.forEach(columns::upsert);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (scanPool != null) scanPool.shutdown();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @TransactionalEventListener
+    public void onPlayersChanged(PlayersChangedEvent event) {
+        if (!enabled) return;
+
+        Collection<Long> changedIds = event.getChangedIds();
+        reloading.incrementAndGet();
+        try {
+            //read outside the lock, so another listener may apply a later change or a delete first
+            List<Player> reloaded = changedIds.isEmpty()
+                    ? Collections.emptyList()
+                    : readTransaction.execute(status -> playerRepository.findAllById(changedIds));
+
+            lock.writeLock().lock();
+            try {
+                event.getSaved().forEach(columns::apply);
+                event.getDeletedIds().forEach(columns::delete);
+
+                Set<Long> found = new HashSet<>();
+                for (Player player : reloaded) {
+                    if (!columns.apply(player)) staleReloads.increment();
+                    found.add(player.getId());
+                }
+                for (Long id : changedIds) {
+                    if (!found.contains(id)) columns.delete(id);
+                }
+                //a reload starting after this reads past every delete applied so far
+                if (reloading.get() == 1) columns.forgetDeleted();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            reloading.decrementAndGet();
+        }
+    }
+
+    public long count(PlayerFilter filter) {
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            return scan(candidates(filter), new RowPredicate(filter, columns));
+        } finally {
+            lock.readLock().unlock();
+            queryLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public PlayerPage page(PlayerFilter filter, Pageable pageable) {
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            long[] matches = candidates(filter);
+            long total = scan(matches, new RowPredicate(filter, columns));
+            List<Player> content = select(matches, pageable.getSort(), pageable.getOffset(), pageable.getPageSize());
+            return new PlayerPage(content, total, pageable.getPageNumber(), pageable.getPageSize());
+        } finally {
+            lock.readLock().unlock();
+            queryLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public Slice<Player> slice(PlayerFilter filter, Pageable pageable) {
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            long[] matches = candidates(filter);
+            scan(matches, new RowPredicate(filter, columns));
+            List<Player> content = select(matches, pageable.getSort(), pageable.getOffset(), pageable.getPageSize() + 1);
+
+            boolean hasNext = content.size() > pageable.getPageSize();
+            if (hasNext) content.remove(content.size() - 1);
+            return new SliceImpl<>(content, pageable, hasNext);
+        } finally {
+            lock.readLock().unlock();
+            queryLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    //live rows narrowed by the bitmap-backed equality filters
+    private long[] candidates(PlayerFilter filter) {
+        int words = columns.words();
+        long[] result = Arrays.copyOf(columns.live, words);
+
+        if (filter.getRace() != null) and(result, columns.raceBitmaps[filter.getRace().ordinal()]);
+        if (filter.getProfession() != null) and(result, columns.professionBitmaps[filter.getProfession().ordinal()]);
+        if (filter.getBanned() != null) and(result, filter.getBanned() ? columns.banned : columns.notBanned);
+
+        return result;
+    }
+
+    //clears the rows failing the row-level filters and returns the number of rows left
+    private long scan(long[] matches, RowPredicate predicate) {
+        if (!predicate.isNeeded()) {
+            long count = 0;
+            for (long word : matches) count += Long.bitCount(word);
+            return count;
+        }
+
+        if (matches.length <= WORDS_PER_TASK) return new ScanTask(matches, 0, matches.length, predicate).compute();
+        return scanPool.invoke(new ScanTask(matches, 0, matches.length, predicate));
+    }
+
+    //the requested window of matching rows, found with a bounded heap instead of a full sort
+    private List<Player> select(long[] matches, Sort sort, long offset, int limit) {
+        long wanted = offset + limit;
+        if (wanted > Integer.MAX_VALUE) return new ArrayList<>();
+
+        Comparator<Integer> order = comparator(sort);
+        PriorityQueue<Integer> heap = new PriorityQueue<>((int) wanted + 1, order.reversed());
+        for (int word = 0; word < matches.length; word++) {
+            long bits = matches[word];
+            while (bits != 0) {
+                int row = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+
+                heap.add(row);
+                if (heap.size() > wanted) heap.poll();
+            }
+        }
+
+        List<Integer> rows = new ArrayList<>(heap);
+        rows.sort(order);
+
+        List<Player> result = new ArrayList<>(limit);
+        for (int i = (int) offset; i < rows.size(); i++) {
+            result.add(columns.materialize(rows.get(i)));
+        }
+        return result;
+    }
+
+    private Comparator<Integer> comparator(Sort sort) {
+        Comparator<Integer> result = null;
+        for (Sort.Order order : sort) {
+            Comparator<Integer> byColumn = columnComparator(order.getProperty());
+            if (order.isDescending()) byColumn = byColumn.reversed();
+            result = result == null ? byColumn : result.thenComparing(byColumn);
+        }
+
+        Comparator<Integer> byId = (a, b) -> Long.compare(columns.ids[a], columns.ids[b]);
+        return result == null ? byId : result.thenComparing(byId);
+    }
+
+    private Comparator<Integer> columnComparator(String property) {
+        switch (property) {
+            case "id":
+                return (a, b) -> Long.compare(columns.ids[a], columns.ids[b]);
+            case "name":
+                return Comparator.comparing(row -> columns.names[row], Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "title":
+                return Comparator.comparing(row -> columns.titles[row], Comparator.nullsFirst(Comparator.naturalOrder()));
+            //NULL is kept below every value, so it sorts first as on H2 and MySQL
+            case "experience":
+                return (a, b) -> Integer.compare(columns.experience[a], columns.experience[b]);
+            case "level":
+                return (a, b) -> Integer.compare(columns.levels[a], columns.levels[b]);
+            case "untilNextLevel":
+                return (a, b) -> Integer.compare(columns.untilNextLevel[a], columns.untilNextLevel[b]);
+            case "birthday":
+                return (a, b) -> Integer.compare(columns.birthdays[a], columns.birthdays[b]);
+            default:
+                throw new IllegalArgumentException("Unknown sort property: " + property);
+        }
+    }
+
+    private static void and(long[] target, long[] bitmap) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] &= bitmap[i];
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "read-model";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        lock.readLock().lock();
+        try {
+            result.put("rows", columns.size());
+            result.put("capacity", columns.capacity());
+            result.put("deletedIds", columns.deleted());
+        } finally {
+            lock.readLock().unlock();
+        }
+        result.put("staleReloads", staleReloads.sum());
+        result.put("queryLatency", queryLatency.snapshot());
+        return result;
+    }
+
+    /**
+     * Range and substring filters, checked row by row.
+     */
+    private static final class RowPredicate {
+        private final PlayerColumns columns;
+        private final String name;
+        private final String title;
+        private final int minExperience;
+        private final int maxExperience;
+        private final int minLevel;
+        private final int maxLevel;
+        private final int minBirthday;
+        private final int maxBirthday;
+        private final boolean needed;
+
+        RowPredicate(PlayerFilter filter, PlayerColumns columns) {
+            this.columns = columns;
+            this.name = filter.getName();
+            this.title = filter.getTitle();
+            this.minExperience = lowerBound(filter.getMinExperience(), filter.getMaxExperience());
+            this.maxExperience = filter.getMaxExperience() == null ? Integer.MAX_VALUE : filter.getMaxExperience();
+            this.minLevel = lowerBound(filter.getMinLevel(), filter.getMaxLevel());
+            this.maxLevel = filter.getMaxLevel() == null ? Integer.MAX_VALUE : filter.getMaxLevel();
+            this.minBirthday = lowerBound(filter.getAfter() == null ? null : columns.firstDayFrom(filter.getAfter()),
+                    filter.getBefore());
+            this.maxBirthday = filter.getBefore() == null ? Integer.MAX_VALUE : columns.lastDayUntil(filter.getBefore());
+            this.needed = name != null || title != null
+                    || filter.getMinExperience() != null || filter.getMaxExperience() != null
+                    || filter.getMinLevel() != null || filter.getMaxLevel() != null
+                    || filter.getAfter() != null || filter.getBefore() != null;
+        }
+
+        //a NULL never matches a bound in SQL, so any bound on a column leaves its NULLs out
+        private static int lowerBound(Integer min, Object max) {
+            if (min != null) return Math.max(min, PlayerColumns.NULL + 1);
+            return max == null ? PlayerColumns.NULL : PlayerColumns.NULL + 1;
+        }
+
+        boolean isNeeded() {
+            return needed;
+        }
+
+        boolean test(int row) {
+            int exp = columns.experience[row];
+            if (exp < minExperience || exp > maxExperience) return false;
+            int level = columns.levels[row];
+            if (level < minLevel || level > maxLevel) return false;
+            int birthday = columns.birthdays[row];
+            if (birthday < minBirthday || birthday > maxBirthday) return false;
+            if (name != null && (columns.names[row] == null || !columns.names[row].contains(name))) return false;
+            return title == null || columns.titles[row] != null && columns.titles[row].contains(title);
+        }
+    }
+
+    /**
+     * Filters a range of bitmap words in place. Tasks never share a word, so they need no synchronization.
+     */
+    private static final class ScanTask extends RecursiveTask<Long> {
+        private final long[] matches;
+        private final int from;
+        private final int to;
+        private final RowPredicate predicate;
+
+        ScanTask(long[] matches, int from, int to, RowPredicate predicate) {
+            this.matches = matches;
+            this.from = from;
+            this.to = to;
+            this.predicate = predicate;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from > WORDS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                ScanTask left = new ScanTask(matches, from, middle, predicate);
+                left.fork();
+                long right = new ScanTask(matches, middle, to, predicate).compute();
+                return right + left.join();
+            }
+
+            long count = 0;
+            for (int word = from; word < to; word++) {
+                long bits = matches[word];
+                long kept = bits;
+                while (bits != 0) {
+                    int bit = Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (!predicate.test((word << 6) + bit)) kept &= ~(1L << bit);
+                }
+                matches[word] = kept;
+                count += Long.bitCount(kept);
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.game.readmodel;
+
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Column-oriented copy of the {@code player} table. Every row lives at a slot index shared by all
+ * columns; enum and banned values are additionally kept as one bitmap per value. A NULL in the
+ * int columns is kept as {@link #NULL}, below every value those columns can hold.
+ * <p>
+ * Changes may arrive out of order, so a row is only replaced by a higher version and a deleted id
+ * is remembered until no reload that could still bring it back is running; ids are never reused.
+ * Not thread-safe, {@link ColumnarReadModel} guards it with a read-write lock.
+ */
+class PlayerColumns {
+    private static final Race[] RACES = Race.values();
+    private static final Profession[] PROFESSIONS = Profession.values();
+    private static final int INITIAL_CAPACITY = 1024;
+    static final int NULL = Integer.MIN_VALUE;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final Map<Long, Integer> rowById = new HashMap<>();
+    private final Set<Long> deletedIds = new HashSet<>();
+
+    private int capacity;
+    private int highWater;
+    private int[] freeRows = new int[16];
+    private int freeCount;
+
+    long[] ids;
+    long[] versions;
+    String[] names;
+    String[] titles;
+    byte[] races;
+    byte[] professions;
+    int[] birthdays;
+    int[] experience;
+    int[] levels;
+    int[] untilNextLevel;
+
+    long[] live;
+    long[] banned;
+    long[] notBanned;
+    final long[][] raceBitmaps = new long[RACES.length][];
+    final long[][] professionBitmaps = new long[PROFESSIONS.length][];
+
+    PlayerColumns() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    int size() {
+        return rowById.size();
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    int words() {
+        return (highWater + 63) >>> 6;
+    }
+
+    int deleted() {
+        return deletedIds.size();
+    }
+
+    void clear() {
+        rowById.clear();
+        deletedIds.clear();
+        highWater = 0;
+        freeCount = 0;
+        capacity = 0;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    //the player read or saved after a change, unless the row is already at that version or deleted
+    boolean apply(Player player) {
+        if (deletedIds.contains(player.getId())) return false;
+        Integer existing = rowById.get(player.getId());
+        if (existing != null && versions[existing] >= versionOf(player)) return false;
+
+        upsert(player);
+        return true;
+    }
+
+    void delete(long id) {
+        remove(id);
+        deletedIds.add(id);
+    }
+
+    void forgetDeleted() {
+        deletedIds.clear();
+    }
+
+    void upsert(Player player) {
+        Integer existing = rowById.get(player.getId());
+        int row;
+        if (existing != null) {
+            row = existing;
+            clearBits(row);
+        } else {
+            row = freeCount > 0 ? freeRows[--freeCount] : highWater++;
+            if (row >= capacity) allocate(capacity * 2);
+            rowById.put(player.getId(), row);
+        }
+
+        ids[row] = player.getId();
+        versions[row] = versionOf(player);
+        names[row] = player.getName();
+        titles[row] = player.getTitle();
+        races[row] = (byte) (player.getRace() == null ? -1 : player.getRace().ordinal());
+        professions[row] = (byte) (player.getProfession() == null ? -1 : player.getProfession().ordinal());
+        birthdays[row] = player.getBirthday() == null ? NULL : toEpochDay(player.getBirthday().getTime());
+        experience[row] = orNull(player.getExperience());
+        levels[row] = orNull(player.getLevel());
+        untilNextLevel[row] = orNull(player.getUntilNextLevel());
+
+        set(live, row);
+        if (races[row] >= 0) set(raceBitmaps[races[row]], row);
+        if (professions[row] >= 0) set(professionBitmaps[professions[row]], row);
+        if (Boolean.TRUE.equals(player.isBanned())) set(banned, row);
+        else if (Boolean.FALSE.equals(player.isBanned())) set(notBanned, row);
+    }
+
+    void remove(long id) {
+        Integer row = rowById.remove(id);
+        if (row == null) return;
+
+        clearBits(row);
+        names[row] = null;
+        titles[row] = null;
+        if (freeCount == freeRows.length) freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+        freeRows[freeCount++] = row;
+    }
+
+    Player materialize(int row) {
+        Race race = races[row] < 0 ? null : RACES[races[row]];
+        Profession profession = professions[row] < 0 ? null : PROFESSIONS[professions[row]];
+        Boolean isBanned = isSet(banned, row) ? Boolean.TRUE : isSet(notBanned, row) ? Boolean.FALSE : null;
+
+        Player player = new Player(ids[row], names[row], titles[row], race, profession, valueOf(experience[row]),
+                valueOf(levels[row]), valueOf(untilNextLevel[row]),
+                birthdays[row] == NULL ? null : new Date(toEpochMilli(birthdays[row])), isBanned);
+        player.setVersion(versions[row]);
+        return player;
+    }
+
+    private static long versionOf(Player player) {
+        return player.getVersion() == null ? 0 : player.getVersion();
+    }
+
+    private static int orNull(Integer value) {
+        return value == null ? NULL : value;
+    }
+
+    private static Integer valueOf(int value) {
+        return value == NULL ? null : value;
+    }
+
+    //first day whose midnight is at or after the instant
+    int firstDayFrom(long epochMilli) {
+        int day = toEpochDay(epochMilli);
+        return toEpochMilli(day) < epochMilli ? day + 1 : day;
+    }
+
+    //last day whose midnight is at or before the instant
+    int lastDayUntil(long epochMilli) {
+        return toEpochDay(epochMilli);
+    }
+
+    private int toEpochDay(long epochMilli) {
+        return (int) Instant.ofEpochMilli(epochMilli).atZone(zone).toLocalDate().toEpochDay();
+    }
+
+    private long toEpochMilli(int epochDay) {
+        return LocalDate.ofEpochDay(epochDay).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    private void clearBits(int row) {
+        clear(live, row);
+        clear(banned, row);
+        clear(notBanned, row);
+        for (long[] bitmap : raceBitmaps) clear(bitmap, row);
+        for (long[] bitmap : professionBitmaps) clear(bitmap, row);
+    }
+
+    private void allocate(int newCapacity) {
+        int words = newCapacity >>> 6;
+        if (capacity == 0) {
+            ids = new long[newCapacity];
+            versions = new long[newCapacity];
+            names = new String[newCapacity];
+            titles = new String[newCapacity];
+            races = new byte[newCapacity];
+            professions = new byte[newCapacity];
+            birthdays = new int[newCapacity];
+            experience = new int[newCapacity];
+            levels = new int[newCapacity];
+            untilNextLevel = new int[newCapacity];
+            live = new long[words];
+            banned = new long[words];
+            notBanned = new long[words];
+            for (int i = 0; i < raceBitmaps.length; i++) raceBitmaps[i] = new long[words];
+            for (int i = 0; i < professionBitmaps.length; i++) professionBitmaps[i] = new long[words];
+        } else {
+            ids = Arrays.copyOf(ids, newCapacity);
+            versions = Arrays.copyOf(versions, newCapacity);
+            names = Arrays.copyOf(names, newCapacity);
+            titles = Arrays.copyOf(titles, newCapacity);
+            races = Arrays.copyOf(races, newCapacity);
+            professions = Arrays.copyOf(professions, newCapacity);
+            birthdays = Arrays.copyOf(birthdays, newCapacity);
+            experience = Arrays.copyOf(experience, newCapacity);
+            levels = Arrays.copyOf(levels, newCapacity);
+            untilNextLevel = Arrays.copyOf(untilNextLevel, newCapacity);
+            live = Arrays.copyOf(live, words);
+            banned = Arrays.copyOf(banned, words);
+            notBanned = Arrays.copyOf(notBanned, words);
+            for (int i = 0; i < raceBitmaps.length; i++) raceBitmaps[i] = Arrays.copyOf(raceBitmaps[i], words);
+            for (int i = 0; i < professionBitmaps.length; i++)
+                professionBitmaps[i] = Arrays.copyOf(professionBitmaps[i], words);
+        }
+        capacity = newCapacity;
+    }
+
+    static boolean isSet(long[] bitmap, int row) {
+        return (bitmap[row >>> 6] & (1L << row)) != 0;
+    }
+
+    private static void set(long[] bitmap, int row) {
+        bitmap[row >>> 6] |= 1L << row;
+    }
+
+    private static void clear(long[] bitmap, int row) {
+        bitmap[row >>> 6] &= ~(1L << row);
+    }
+}
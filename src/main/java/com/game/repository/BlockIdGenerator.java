@@ -0,0 +1,35 @@
+package com.game.repository;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.Configurable;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+/**
+ * Hibernate id generator backed by the {@link IdBlockAllocator} passed in the
+ * {@value #ALLOCATOR_SETTING} setting. Ids are known before the insert, so inserts can be batched.
+ */
+public class BlockIdGenerator implements IdentifierGenerator, Configurable {
+    public static final String ALLOCATOR_SETTING = "game.id.allocator";
+
+    private IdBlockAllocator allocator;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Object setting = serviceRegistry.getService(ConfigurationService.class).getSettings().get(ALLOCATOR_SETTING);
+        if (!(setting instanceof IdBlockAllocator))
+            throw new MappingException("No id allocator configured in " + ALLOCATOR_SETTING);
+        allocator = (IdBlockAllocator) setting;
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        return allocator.nextId();
+    }
+}
@@ -0,0 +1,94 @@
+package com.game.repository;
+
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands out ids from blocks reserved in the {@code player_id_block} table. Ids within a block come
+ * from memory without locking; a new block is reserved with a compare-and-set update on its own
+ * connection, so nodes sharing the table never get overlapping blocks and a rolled back insert
+ * never returns its block.
+ */
+public class IdBlockAllocator {
+    private static final String SELECT = "SELECT next_id FROM player_id_block WHERE name = ?";
+    private static final String UPDATE = "UPDATE player_id_block SET next_id = ? WHERE name = ? AND next_id = ?";
+
+    private final DataSource dataSource;
+    private final String name;
+    private final int blockSize;
+    private final AtomicReference<Block> current = new AtomicReference<>(new Block(0, 0));
+
+    public IdBlockAllocator(DataSource dataSource, String name, int blockSize) {
+        if (blockSize < 1) throw new IllegalArgumentException("Block size must be positive");
+        this.dataSource = dataSource;
+        this.name = name;
+        this.blockSize = blockSize;
+    }
+
+    public long nextId() {
+        while (true) {
+            Block block = current.get();
+            long id = block.next.getAndIncrement();
+            if (id < block.end) return id;
+
+            synchronized (this) {
+                if (current.get() == block) current.set(reserve());
+            }
+        }
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    //never the caller's connection, whose transaction may still roll back
+    private Block reserve() {
+        try (Connection connection = dataSource.getConnection()) {
+            return reserve(connection);
+        } catch (SQLException e) {
+            throw new JdbcTemplate(dataSource).getExceptionTranslator().translate("Reserve id block", UPDATE, e);
+        }
+    }
+
+    private Block reserve(Connection connection) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(true);
+        try (PreparedStatement select = connection.prepareStatement(SELECT);
+             PreparedStatement update = connection.prepareStatement(UPDATE)) {
+            while (true) {
+                select.setString(1, name);
+                long start;
+                try (ResultSet resultSet = select.executeQuery()) {
+                    if (!resultSet.next())
+                        throw new DataRetrievalFailureException("No id block row named " + name);
+                    start = resultSet.getLong(1);
+                }
+
+                update.setLong(1, start + blockSize);
+                update.setString(2, name);
+                update.setLong(3, start);
+                if (update.executeUpdate() == 1) return new Block(start, start + blockSize);
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
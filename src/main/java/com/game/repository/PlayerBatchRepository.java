@@ -0,0 +1,75 @@
+package com.game.repository;
+
+import com.game.entity.Player;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes players with plain JDBC statement batches, bypassing the persistence context.
+ */
+@Repository
+public class PlayerBatchRepository {
+    private static final String INSERT = "INSERT INTO player"
+            + "(id, name, title, race, profession, birthday, banned, experience, level, untilNextLevel)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String ADD_EXPERIENCE = String.format(PlayerRepositoryImpl.AWARD_SQL,
+            PlayerRepositoryImpl.AWARDED_EXPERIENCE_SQL);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IdBlockAllocator idAllocator;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    public PlayerBatchRepository(DataSource dataSource, IdBlockAllocator playerIdAllocator,
+                                 EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.idAllocator = playerIdAllocator;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    //one batch for all players, ids come from the same blocks as the ones Hibernate assigns
+    public void insertAll(List<Player> players) {
+        for (Player player : players) {
+            player.setId(idAllocator.nextId());
+        }
+
+        jdbcTemplate.batchUpdate(INSERT, players, players.size(), (statement, player) -> {
+            statement.setLong(1, player.getId());
+            statement.setString(2, player.getName());
+            statement.setString(3, player.getTitle());
+            statement.setString(4, player.getRace().name());
+            statement.setString(5, player.getProfession().name());
+            statement.setTimestamp(6, new Timestamp(player.getBirthday().getTime()));
+            statement.setBoolean(7, player.isBanned());
+            statement.setInt(8, player.getExperience());
+            statement.setInt(9, player.getLevel());
+            statement.setInt(10, player.getUntilNextLevel());
+        });
+    }
+
+    //one batch of experience deltas by player id, clamped and levelled like PlayerRepositoryImpl.addExperience
+    public void addExperience(Map<Long, Integer> deltas) {
+        List<Map.Entry<Long, Integer>> rows = new ArrayList<>(deltas.entrySet());
+
+        jdbcTemplate.batchUpdate(ADD_EXPERIENCE, rows, rows.size(), (statement, row) -> {
+            for (int i = 1; i <= PlayerRepositoryImpl.AWARD_DELTA_PARAMETERS; i++) {
+                statement.setInt(i, row.getValue());
+            }
+            statement.setLong(PlayerRepositoryImpl.AWARD_DELTA_PARAMETERS + 1, row.getKey());
+        });
+    }
+
+    //query results cached by Hibernate cannot see rows written here
+    public void evictQueryCache() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+    }
+}
@@ -0,0 +1,44 @@
+package com.game.repository;
+
+import com.game.dto.PlayerPage;
+import com.game.dto.PlayerPatch;
+import com.game.entity.Player;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.function.Consumer;
+
+public interface PlayerRepositoryCustom {
+    PlayerPage findPage(Specification<Player> specification, Pageable pageable);
+
+    Slice<Player> findSlice(Specification<Player> specification, Pageable pageable);
+
+    List<Map<String, Object>> findFields(Specification<Player> specification, Pageable pageable, List<String> attributes);
+
+    void scroll(Specification<Player> specification, Sort sort, int fetchSize, Consumer<Player> consumer);
+
+    long countMatching(Specification<Player> specification);
+
+    List<Long> findIds(Specification<Player> specification, long afterId, int limit);
+
+    int updateAll(Specification<Player> specification, PlayerPatch patch, long afterId, long toId);
+
+    int deleteAll(Specification<Player> specification, long afterId, long toId);
+
+    int updateFields(long id, Player changes, Long expectedVersion);
+
+    Optional<Long> findVersion(long id);
+
+    Optional<Player> findDetached(long id);
+
+    int deleteByIds(Collection<Long> ids);
+
+    OptionalInt addExperience(long id, int delta, Long expectedVersion);
+}
@@ -0,0 +1,397 @@
+package com.game.repository;
+
+import com.game.config.WindowFunctionMySQLDialect;
+import com.game.dto.PlayerPage;
+import com.game.dto.PlayerPatch;
+import com.game.entity.Player;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.CacheRetrieveMode;
+import javax.persistence.CacheStoreMode;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.function.Consumer;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+@Transactional(readOnly = true)
+public class PlayerRepositoryImpl implements PlayerRepositoryCustom {
+    //same formulas as levelFor and PlayerValidator.currentLevelCalc
+    private static final String LEVEL_SQL = "FLOOR((FLOOR(SQRT(2500 + 200 * ?)) - 50) / 100)";
+    private static final String UNTIL_NEXT_LEVEL_SQL = "50 * (" + LEVEL_SQL + " + 1) * (" + LEVEL_SQL + " + 2) - ?";
+    static final String AWARDED_EXPERIENCE_SQL = "LEAST(GREATEST(experience + ?, " + Player.MIN_EXPERIENCE + "), "
+            + Player.MAX_EXPERIENCE + ")";
+    //experience goes last: MySQL evaluates later assignments against the already updated columns
+    static final String AWARD_SQL = "UPDATE player SET level = " + LEVEL_SQL.replace("?", AWARDED_EXPERIENCE_SQL)
+            + ", untilNextLevel = " + UNTIL_NEXT_LEVEL_SQL.replace("?", AWARDED_EXPERIENCE_SQL)
+            + ", experience = %s, version = version + 1 WHERE id = ?";
+    static final int AWARD_DELTA_PARAMETERS = 5;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    //page rows and the total come back from the same statement via count(*) over()
+    @Override
+    public PlayerPage findPage(Specification<Player> specification, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Player> root = query.from(Player.class);
+        query.multiselect(root, cb.function(WindowFunctionMySQLDialect.COUNT_OVER, Long.class));
+        applySpecification(specification, root, query, cb);
+        query.orderBy(toOrders(pageable.getSort(), root, cb));
+
+        List<Tuple> rows = entityManager.createQuery(query)
+                .setHint(HINT_CACHEABLE, true)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        List<Player> content = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            content.add(row.get(0, Player.class));
+        }
+
+        //past the last page there is no row to carry the total
+        long total = rows.isEmpty()
+                ? (pageable.getOffset() == 0 ? 0 : countMatching(specification))
+                : rows.get(0).get(1, Long.class);
+
+        return new PlayerPage(content, total, pageable.getPageNumber(), pageable.getPageSize());
+    }
+
+    //reads one row past the page instead of counting
+    @Override
+    public Slice<Player> findSlice(Specification<Player> specification, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Player> query = cb.createQuery(Player.class);
+        Root<Player> root = query.from(Player.class);
+        query.select(root);
+        applySpecification(specification, root, query, cb);
+        query.orderBy(toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<Player> typedQuery = entityManager.createQuery(query)
+                .setHint(HINT_CACHEABLE, true)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1);
+        List<Player> content = new ArrayList<>(typedQuery.getResultList());
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) content.remove(content.size() - 1);
+
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    //only the given attributes are selected and the rows never become entities
+    @Override
+    public List<Map<String, Object>> findFields(Specification<Player> specification, Pageable pageable,
+                                                List<String> attributes) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Player> root = query.from(Player.class);
+        List<Selection<?>> selections = new ArrayList<>(attributes.size());
+        for (String attribute : attributes) {
+            selections.add(root.get(attribute));
+        }
+        query.multiselect(selections);
+        applySpecification(specification, root, query, cb);
+        query.orderBy(toOrders(pageable.getSort(), root, cb));
+
+        List<Tuple> rows = entityManager.createQuery(query)
+                .setHint(HINT_CACHEABLE, true)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        List<Map<String, Object>> content = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int i = 0; i < attributes.size(); i++) {
+                values.put(attributes.get(i), row.get(i));
+            }
+            content.add(values);
+        }
+        return content;
+    }
+
+    //forward-only cursor over the matching rows, each player leaves the session once the consumer is done with it
+    @Override
+    @SuppressWarnings("unchecked")
+    public void scroll(Specification<Player> specification, Sort sort, int fetchSize, Consumer<Player> consumer) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Player> query = cb.createQuery(Player.class);
+        Root<Player> root = query.from(Player.class);
+        query.select(root);
+        applySpecification(specification, root, query, cb);
+        query.orderBy(toOrders(sort, root, cb));
+
+        Session session = entityManager.unwrap(Session.class);
+        //MySQL buffers the whole result for any other fetch size unless the url sets useCursorFetch
+        boolean mysql = session.doReturningWork(connection ->
+                "MySQL".equals(connection.getMetaData().getDatabaseProductName()));
+
+        Query<Player> cursorQuery = entityManager.createQuery(query).unwrap(Query.class)
+                .setFetchSize(mysql ? Integer.MIN_VALUE : fetchSize)
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE);
+        try (ScrollableResults rows = cursorQuery.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (rows.next()) {
+                Player player = (Player) rows.get(0);
+                consumer.accept(player);
+                session.evict(player);
+            }
+        }
+    }
+
+    //unlike JpaSpecificationExecutor.count the query can be served from the query cache
+    @Override
+    public long countMatching(Specification<Player> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Player> root = query.from(Player.class);
+        query.select(cb.count(root));
+        applySpecification(specification, root, query, cb);
+
+        return entityManager.createQuery(query)
+                .setHint(HINT_CACHEABLE, true)
+                .getSingleResult();
+    }
+
+    //matching ids in ascending order, for walking a filter in chunks
+    @Override
+    public List<Long> findIds(Specification<Player> specification, long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Player> root = query.from(Player.class);
+        query.select(root.get("id"));
+        query.where(matching(specification, root, query, cb, afterId, Long.MAX_VALUE));
+        query.orderBy(cb.asc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    @Transactional
+    public int updateAll(Specification<Player> specification, PlayerPatch patch, long afterId, long toId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Player> update = cb.createCriteriaUpdate(Player.class);
+        Root<Player> root = update.from(Player.class);
+
+        if (patch.getBanned() != null) update.set(root.<Boolean>get("banned"), patch.getBanned());
+
+        Expression<Integer> experience = newExperience(patch, root, cb);
+        if (experience != null) {
+            //experience goes last: MySQL evaluates SET left to right, so the level
+            //expressions still read the old column there, as on other databases
+            Expression<Integer> level = levelFor(experience, cb);
+            update.set(root.<Integer>get("level"), level);
+            update.set(root.<Integer>get("untilNextLevel"), cb.diff(
+                    cb.prod(cb.prod(cb.literal(50), cb.sum(level, 1)), cb.sum(level, 2)), experience));
+            update.set(root.<Integer>get("experience"), experience);
+        }
+        update.set(root.<Long>get("version"), cb.sum(root.<Long>get("version"), 1L));
+        update.where(matching(specification, root, null, cb, afterId, toId));
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @Override
+    @Transactional
+    public int deleteAll(Specification<Player> specification, long afterId, long toId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaDelete<Player> delete = cb.createCriteriaDelete(Player.class);
+        Root<Player> root = delete.from(Player.class);
+        delete.where(matching(specification, root, null, cb, afterId, toId));
+
+        return entityManager.createQuery(delete).executeUpdate();
+    }
+
+    //one UPDATE of the non-null columns, run as plain JDBC on the transaction's connection: a JPQL
+    //update would drop the whole player cache region, SecondLevelCacheEviction drops just this row
+    @Override
+    @Transactional
+    public int updateFields(long id, Player changes, Long expectedVersion) {
+        StringBuilder sql = new StringBuilder("UPDATE player SET ");
+        List<Object> values = new ArrayList<>();
+        addColumn(sql, values, "name", changes.getName());
+        addColumn(sql, values, "title", changes.getTitle());
+        addColumn(sql, values, "race", changes.getRace() == null ? null : changes.getRace().name());
+        addColumn(sql, values, "profession", changes.getProfession() == null ? null : changes.getProfession().name());
+        addColumn(sql, values, "birthday", changes.getBirthday() == null ? null : new Timestamp(changes.getBirthday().getTime()));
+        addColumn(sql, values, "banned", changes.isBanned());
+        if (changes.getExperience() != null) {
+            addColumn(sql, values, "level", LEVEL_SQL, changes.getExperience());
+            addColumn(sql, values, "untilNextLevel", UNTIL_NEXT_LEVEL_SQL,
+                    changes.getExperience(), changes.getExperience(), changes.getExperience());
+            addColumn(sql, values, "experience", changes.getExperience());
+        }
+        if (values.isEmpty()) throw new IllegalArgumentException("No columns to update");
+        sql.append(", version = version + 1 WHERE id = ?");
+        values.add(id);
+        if (expectedVersion != null) {
+            sql.append(" AND version = ?");
+            values.add(expectedVersion);
+        }
+
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                for (int i = 0; i < values.size(); i++) {
+                    statement.setObject(i + 1, values.get(i));
+                }
+                return statement.executeUpdate();
+            }
+        });
+    }
+
+    //one DELETE for all ids, as plain JDBC for the same reason as updateFields
+    @Override
+    @Transactional
+    public int deleteByIds(Collection<Long> ids) {
+        StringBuilder sql = new StringBuilder("DELETE FROM player WHERE id IN (");
+        for (int i = 0; i < ids.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(')');
+
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                int index = 1;
+                for (Long id : ids) {
+                    statement.setLong(index++, id);
+                }
+                return statement.executeUpdate();
+            }
+        });
+    }
+
+    //one UPDATE that also hands back the new experience: MySQL through LAST_INSERT_ID(expr) as the
+    //generated key, other databases through the updated column as the generated key. Empty when there
+    //is no such player, or it is not at the expected version
+    @Override
+    @Transactional
+    public OptionalInt addExperience(long id, int delta, Long expectedVersion) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            boolean mysql = "MySQL".equals(connection.getMetaData().getDatabaseProductName());
+            String sql = String.format(AWARD_SQL,
+                    mysql ? "LAST_INSERT_ID(" + AWARDED_EXPERIENCE_SQL + ")" : AWARDED_EXPERIENCE_SQL)
+                    + (expectedVersion == null ? "" : " AND version = ?");
+
+            try (PreparedStatement statement = connection.prepareStatement(sql, new String[]{"experience"})) {
+                for (int i = 1; i <= AWARD_DELTA_PARAMETERS; i++) {
+                    statement.setInt(i, delta);
+                }
+                statement.setLong(AWARD_DELTA_PARAMETERS + 1, id);
+                if (expectedVersion != null) statement.setLong(AWARD_DELTA_PARAMETERS + 2, expectedVersion);
+                if (statement.executeUpdate() == 0) return OptionalInt.empty();
+
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    //the MySQL driver reports no key when LAST_INSERT_ID is 0, i.e. experience was clamped to 0
+                    return OptionalInt.of(keys.next() ? keys.getInt(1) : Player.MIN_EXPERIENCE);
+                }
+            }
+        });
+    }
+
+    //the committed version, never the cached one
+    @Override
+    public Optional<Long> findVersion(long id) {
+        return entityManager.createQuery("select p.version from Player p where p.id = :id", Long.class)
+                .setParameter("id", id)
+                .getResultList()
+                .stream()
+                .findFirst();
+    }
+
+    //straight from the database and out of the persistence context, changes to it are not saved
+    @Override
+    public Optional<Player> findDetached(long id) {
+        Map<String, Object> hints = new HashMap<>();
+        hints.put("javax.persistence.cache.retrieveMode", CacheRetrieveMode.BYPASS);
+        hints.put("javax.persistence.cache.storeMode", CacheStoreMode.BYPASS);
+
+        Player player = entityManager.find(Player.class, id, hints);
+        if (player != null) entityManager.detach(player);
+        return Optional.ofNullable(player);
+    }
+
+    private static void addColumn(StringBuilder sql, List<Object> values, String column, Object value) {
+        addColumn(sql, values, column, "?", value);
+    }
+
+    private static void addColumn(StringBuilder sql, List<Object> values, String column, String expression,
+                                  Object... expressionValues) {
+        if (expressionValues.length == 1 && expressionValues[0] == null) return;
+
+        if (!values.isEmpty()) sql.append(", ");
+        sql.append(column).append(" = ").append(expression);
+        values.addAll(Arrays.asList(expressionValues));
+    }
+
+    //the new experience kept within bounds, null when the patch leaves it alone
+    private static Expression<Integer> newExperience(PlayerPatch patch, Root<Player> root, CriteriaBuilder cb) {
+        if (patch.getExperience() != null) return cb.literal(patch.getExperience());
+        if (patch.getExperienceDelta() == null) return null;
+
+        Expression<Integer> shifted = cb.sum(root.get("experience"), patch.getExperienceDelta());
+        return cb.<Integer>selectCase()
+                .when(cb.lt(shifted, Player.MIN_EXPERIENCE), Player.MIN_EXPERIENCE)
+                .when(cb.gt(shifted, Player.MAX_EXPERIENCE), Player.MAX_EXPERIENCE)
+                .otherwise(shifted);
+    }
+
+    //(floor(sqrt(2500 + 200 * experience)) - 50) / 100, as in PlayerValidator.currentLevelCalc
+    private static Expression<Integer> levelFor(Expression<Integer> experience, CriteriaBuilder cb) {
+        Expression<Integer> root = cb.function("floor", Integer.class,
+                cb.sqrt(cb.sum(cb.literal(2500), cb.prod(cb.literal(200), experience))));
+        return cb.function("floor", Integer.class, cb.quot(cb.diff(root, 50), 100));
+    }
+
+    private static Predicate matching(Specification<Player> specification, Root<Player> root, CriteriaQuery<?> query,
+                                      CriteriaBuilder cb, long afterId, long toId) {
+        Predicate range = cb.and(cb.gt(root.get("id"), afterId), cb.le(root.get("id"), toId));
+        Predicate predicate = specification == null ? null : specification.toPredicate(root, query, cb);
+        return predicate == null ? range : cb.and(predicate, range);
+    }
+
+    private void applySpecification(Specification<Player> specification, Root<Player> root,
+                                    CriteriaQuery<?> query, CriteriaBuilder cb) {
+        if (specification == null) return;
+
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) query.where(predicate);
+    }
+}
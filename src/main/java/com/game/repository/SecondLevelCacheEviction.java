@@ -0,0 +1,38 @@
+package com.game.repository;
+
+import com.game.entity.Player;
+import com.game.service.PlayersChangedEvent;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Drops second-level cache entries for rows changed or deleted outside Hibernate, once the change has committed.
+ */
+@Component
+public class SecondLevelCacheEviction {
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    public SecondLevelCacheEviction(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @TransactionalEventListener
+    public void onPlayersChanged(PlayersChangedEvent event) {
+        if (event.getChangedIds().isEmpty() && event.getDeletedIds().isEmpty()) return;
+
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        for (Long id : event.getChangedIds()) {
+            cache.evictEntityData(Player.class, id);
+        }
+        for (Long id : event.getDeletedIds()) {
+            cache.evictEntityData(Player.class, id);
+        }
+        cache.evictQueryRegions();
+    }
+}
@@ -0,0 +1,222 @@
+package com.game.service;
+
+import com.game.exceptions.ServiceUnavailableException;
+import com.game.metrics.LatencyHistogram;
+import com.game.metrics.MetricsSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Separate bounded thread pools for the REST reads and writes, so requests waiting on the database
+ * hold one of these threads instead of a servlet container thread, and a backlog of slow writes
+ * cannot starve reads. Work beyond {@code threads + maxQueued} of a kind is rejected at once.
+ * <p>
+ * With virtual threads (see {@link VirtualThreads}) every call gets a thread of its own and
+ * {@code threads} only limits how many of them run at a time; the others wait on a semaphore, which
+ * is then the queue.
+ * <p>
+ * Off unless {@code bulkhead.enabled} is set; the controllers then run everything on the calling thread.
+ */
+@Component
+public class Bulkheads implements MetricsSource, DisposableBean {
+    public enum Kind {
+        READS, WRITES
+    }
+
+    private final boolean enabled;
+    private final boolean virtual;
+    private final Map<Kind, Bulkhead> bulkheads = new EnumMap<>(Kind.class);
+
+    @Autowired
+    public Bulkheads(VirtualThreads virtualThreads,
+                     @Value("${bulkhead.enabled:false}") boolean enabled,
+                     @Value("${bulkhead.reads.threads:9}") int readThreads,
+                     @Value("${bulkhead.reads.maxQueued:100}") int readMaxQueued,
+                     @Value("${bulkhead.reads.timeoutMillis:5000}") long readTimeoutMillis,
+                     @Value("${bulkhead.writes.threads:4}") int writeThreads,
+                     @Value("${bulkhead.writes.maxQueued:50}") int writeMaxQueued,
+                     @Value("${bulkhead.writes.timeoutMillis:10000}") long writeTimeoutMillis) {
+        this.enabled = enabled;
+        this.virtual = enabled && virtualThreads.isActive();
+        if (!enabled) return;
+
+        bulkheads.put(Kind.READS, new Bulkhead(virtualThreads, "player-reads", readThreads, readMaxQueued, readTimeoutMillis));
+        bulkheads.put(Kind.WRITES, new Bulkhead(virtualThreads, "player-writes", writeThreads, writeMaxQueued, writeTimeoutMillis));
+    }
+
+    @Override
+    public void destroy() {
+        bulkheads.values().forEach(bulkhead -> bulkhead.executor.shutdownNow());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    //how long a request may wait for its result, queueing included
+    public long getTimeoutMillis(Kind kind) {
+        return bulkhead(kind).timeoutMillis;
+    }
+
+    //throws ServiceUnavailableException when the kind's threads and queue are all taken
+    public <T> CompletableFuture<T> submit(Kind kind, Callable<T> work) {
+        Bulkhead bulkhead = bulkhead(kind);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        boolean accepted = bulkhead.execute(() -> {
+            long startedAt = System.nanoTime();
+            bulkhead.waitTime.record(startedAt - queuedAt);
+            //timed out while queued, nobody is waiting for it
+            if (result.isDone()) return;
+            try {
+                result.complete(work.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                bulkhead.runTime.record(System.nanoTime() - startedAt);
+            }
+        });
+        if (!accepted) {
+            bulkhead.rejected.increment();
+            throw new ServiceUnavailableException("Too many " + kind.name().toLowerCase() + " waiting");
+        }
+        return result;
+    }
+
+    public void timedOut(Kind kind) {
+        bulkhead(kind).timeouts.increment();
+    }
+
+    private Bulkhead bulkhead(Kind kind) {
+        if (!enabled) throw new IllegalStateException("Bulkheads are disabled");
+        return bulkheads.get(kind);
+    }
+
+    @Override
+    public String getName() {
+        return "bulkheads";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", enabled);
+        snapshot.put("virtualThreads", virtual);
+        for (Map.Entry<Kind, Bulkhead> entry : bulkheads.entrySet()) {
+            Bulkhead bulkhead = entry.getValue();
+            Map<String, Object> counts = new LinkedHashMap<>();
+            int active = bulkhead.active();
+            counts.put("threads", bulkhead.threads);
+            counts.put("active", active);
+            counts.put("queued", bulkhead.accepted() - active);
+            counts.put("maxQueued", bulkhead.maxQueued);
+            counts.put("completed", bulkhead.completed.sum());
+            counts.put("rejected", bulkhead.rejected.sum());
+            counts.put("timeouts", bulkhead.timeouts.sum());
+            counts.put("waitTime", bulkhead.waitTime.snapshot());
+            counts.put("runTime", bulkhead.runTime.snapshot());
+            snapshot.put(entry.getKey().name().toLowerCase(), counts);
+        }
+        return snapshot;
+    }
+
+    private static class Bulkhead {
+        final ExecutorService executor;
+        final int threads;
+        final int maxQueued;
+        final long timeoutMillis;
+        //only with virtual threads: taken while waiting or running, and while running
+        final Semaphore slots;
+        final Semaphore running;
+        final LongAdder completed = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+        final LatencyHistogram waitTime = new LatencyHistogram();
+        final LatencyHistogram runTime = new LatencyHistogram();
+
+        Bulkhead(VirtualThreads virtualThreads, String name, int threads, int maxQueued, long timeoutMillis) {
+            this.threads = threads;
+            this.maxQueued = maxQueued;
+            this.timeoutMillis = timeoutMillis;
+            if (virtualThreads.isActive()) {
+                this.executor = virtualThreads.newPerTaskExecutor(name);
+                this.slots = new Semaphore(threads + maxQueued);
+                this.running = new Semaphore(threads);
+            } else {
+                BlockingQueue<Runnable> queue = maxQueued > 0 ? new ArrayBlockingQueue<>(maxQueued) : new SynchronousQueue<>();
+                this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, queue,
+                        virtualThreads.newFactory(name), new ThreadPoolExecutor.AbortPolicy());
+                this.slots = null;
+                this.running = null;
+            }
+        }
+
+        //false when the threads and the queue are all taken
+        boolean execute(Runnable task) {
+            if (slots == null) {
+                try {
+                    executor.execute(() -> {
+                        try {
+                            task.run();
+                        } finally {
+                            completed.increment();
+                        }
+                    });
+                    return true;
+                } catch (RejectedExecutionException e) {
+                    return false;
+                }
+            }
+
+            if (!slots.tryAcquire()) return false;
+            try {
+                executor.execute(() -> {
+                    try {
+                        running.acquire();
+                    } catch (InterruptedException e) {
+                        slots.release();
+                        return;
+                    }
+                    try {
+                        task.run();
+                    } finally {
+                        completed.increment();
+                        running.release();
+                        slots.release();
+                    }
+                });
+                return true;
+            } catch (RejectedExecutionException e) {
+                slots.release();
+                return false;
+            }
+        }
+
+        int active() {
+            return slots == null ? ((ThreadPoolExecutor) executor).getActiveCount() : threads - running.availablePermits();
+        }
+
+        int accepted() {
+            return slots == null
+                    ? active() + ((ThreadPoolExecutor) executor).getQueue().size()
+                    : threads + maxQueued - slots.availablePermits();
+        }
+    }
+}
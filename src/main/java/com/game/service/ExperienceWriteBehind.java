@@ -0,0 +1,255 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import com.game.metrics.MetricsSource;
+import com.game.repository.PlayerBatchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntSupplier;
+
+/**
+ * Optional write-behind buffer for experience awards. Deltas for the same player are summed in
+ * memory without locking and written as one batch of UPDATEs when enough awards have piled up,
+ * every {@code flushMillis} and on shutdown, so a player awarded many times a second costs one
+ * row update per flush instead of one per award.
+ * <p>
+ * A player's summed delta is clamped once when it is written, not after every award. A delta taken
+ * by a flush counts as pending until the flush has committed, so reads never miss it.
+ */
+@Component
+public class ExperienceWriteBehind implements MetricsSource, InitializingBean, DisposableBean {
+    private static final Logger LOG = LoggerFactory.getLogger(ExperienceWriteBehind.class);
+    //a drained counter on its way out of the map, awards to it retry with a fresh one
+    private static final long RETIRED = Long.MIN_VALUE;
+
+    private final boolean enabled;
+    private final int maxPending;
+    private final long flushMillis;
+    private final PlayerBatchRepository batchRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate flushTransaction;
+    private final ConcurrentHashMap<Long, AtomicLong> pending = new ConcurrentHashMap<>();
+    //deltas taken by the running flush, until it commits
+    private final ConcurrentHashMap<Long, Long> writing = new ConcurrentHashMap<>();
+    //held while deltas move between pending and writing, so a read sees each delta exactly once
+    private final StampedLock handOver = new StampedLock();
+    private final AtomicInteger awardsSinceFlush = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Object flushLock = new Object();
+    private final LongAdder awards = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushedRows = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private ScheduledExecutorService flusher;
+
+    @Autowired
+    public ExperienceWriteBehind(@Value("${experience.writeBehind.enabled:false}") boolean enabled,
+                                 @Value("${experience.writeBehind.maxPending:10000}") int maxPending,
+                                 @Value("${experience.writeBehind.flushMillis:100}") long flushMillis,
+                                 PlayerBatchRepository batchRepository, ApplicationEventPublisher eventPublisher,
+                                 PlatformTransactionManager transactionManager) {
+        this.enabled = enabled;
+        this.maxPending = maxPending;
+        this.flushMillis = flushMillis;
+        this.batchRepository = batchRepository;
+        this.eventPublisher = eventPublisher;
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) return;
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "experience-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (flusher == null) return;
+
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void add(long id, long delta) {
+        accumulate(id, delta);
+        awards.increment();
+
+        if (awardsSinceFlush.incrementAndGet() >= maxPending && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    //the not yet committed delta of one player
+    public long pending(long id) {
+        long stamp = handOver.tryOptimisticRead();
+        long delta = buffered(id) + writing.getOrDefault(id, 0L);
+        if (handOver.validate(stamp)) return delta;
+
+        stamp = handOver.readLock();
+        try {
+            return buffered(id) + writing.getOrDefault(id, 0L);
+        } finally {
+            handOver.unlockRead(stamp);
+        }
+    }
+
+    private long buffered(long id) {
+        AtomicLong counter = pending.get(id);
+        long delta = counter == null ? 0 : counter.get();
+        return delta == RETIRED ? 0 : delta;
+    }
+
+    //drops the player's pending delta, for when the player is deleted; a failed flush does not bring it back
+    public void discard(long id) {
+        writing.remove(id);
+        AtomicLong counter = pending.get(id);
+        if (counter == null) return;
+
+        while (true) {
+            long delta = counter.get();
+            if (delta == RETIRED || counter.compareAndSet(delta, 0)) return;
+        }
+    }
+
+    //runs an update that sets the player's experience outright, with no flush in between: a delta already
+    //taken by a flush is committed first, the ones buffered until the update are dropped if it changed a row
+    public int overwrite(long id, IntSupplier update) {
+        synchronized (flushLock) {
+            int rows = update.getAsInt();
+            if (rows > 0) discard(id);
+            return rows;
+        }
+    }
+
+    public void flush() {
+        synchronized (flushLock) {
+            awardsSinceFlush.set(0);
+            flushRequested.set(false);
+
+            //ordered by id, so concurrent writers lock the rows in the same order
+            Map<Long, Long> deltas = new TreeMap<>();
+            long stamp = handOver.writeLock();
+            try {
+                for (Map.Entry<Long, AtomicLong> entry : pending.entrySet()) {
+                    AtomicLong counter = entry.getValue();
+                    //only this method retires counters, so none seen here is retired
+                    long delta = counter.getAndSet(0);
+                    if (delta != 0) {
+                        deltas.put(entry.getKey(), delta);
+                        writing.put(entry.getKey(), delta);
+                    } else if (counter.compareAndSet(0, RETIRED)) {
+                        pending.remove(entry.getKey(), counter);
+                    }
+                }
+            } finally {
+                handOver.unlockWrite(stamp);
+            }
+            if (deltas.isEmpty()) return;
+
+            try {
+                write(deltas);
+            } catch (RuntimeException e) {
+                //back into the buffer, except the deltas of players discarded meanwhile
+                stamp = handOver.writeLock();
+                try {
+                    deltas.forEach((id, delta) -> {
+                        if (writing.remove(id, delta)) accumulate(id, delta);
+                    });
+                } finally {
+                    handOver.unlockWrite(stamp);
+                }
+                failedFlushes.increment();
+                throw e;
+            }
+            deltas.forEach(writing::remove);
+            flushes.increment();
+            flushedRows.add(deltas.size());
+        }
+    }
+
+    private void write(Map<Long, Long> deltas) {
+        //a delta past the experience range has the same effect as one at its edge
+        Map<Long, Integer> clamped = new TreeMap<>();
+        deltas.forEach((id, delta) -> clamped.put(id,
+                (int) Math.max(-Player.MAX_EXPERIENCE, Math.min(Player.MAX_EXPERIENCE, delta))));
+
+        flushTransaction.execute(status -> {
+            batchRepository.addExperience(clamped);
+            eventPublisher.publishEvent(PlayersChangedEvent.changed(new ArrayList<>(clamped.keySet())));
+            return null;
+        });
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            LOG.warn("Experience flush failed, the deltas are kept for the next one", e);
+        }
+    }
+
+    private void accumulate(long id, long delta) {
+        while (true) {
+            AtomicLong counter = pending.get(id);
+            if (counter == null) counter = pending.computeIfAbsent(id, key -> new AtomicLong());
+
+            long current = counter.get();
+            if (current == RETIRED) {
+                Thread.yield();
+            } else if (counter.compareAndSet(current, current + delta)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "experience-write-behind";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("pendingPlayers", pending.size());
+        result.put("writingPlayers", writing.size());
+        result.put("awards", awards.sum());
+        result.put("flushes", flushes.sum());
+        result.put("flushedRows", flushedRows.sum());
+        result.put("failedFlushes", failedFlushes.sum());
+        return result;
+    }
+}
@@ -0,0 +1,160 @@
+package com.game.service;
+
+import com.game.metrics.MetricsSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Checks every player query against the indexes that actually exist on the {@code player} table
+ * and logs the filter combinations that had to fall back to a full scan, with their timings.
+ * <p>
+ * The indexes are read once, after the migrations have run at startup, so checking a query never
+ * needs a connection of its own next to the one the query holds.
+ */
+@Component
+public class IndexAdvisor implements MetricsSource, SmartInitializingSingleton {
+    private static final Logger LOG = LoggerFactory.getLogger(IndexAdvisor.class);
+    private static final long SLOW_QUERY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final DataSource dataSource;
+    private final Map<String, QueryStats> stats = new ConcurrentHashMap<>();
+    private volatile List<List<String>> indexes = Collections.emptyList();
+
+    @Autowired
+    public IndexAdvisor(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        indexes = readIndexes();
+    }
+
+    public void record(PlayerFilter filter, String sortField, long nanos) {
+        Set<String> seekColumns = new LinkedHashSet<>();
+        if (filter.getRace() != null) seekColumns.add("race");
+        if (filter.getProfession() != null) seekColumns.add("profession");
+        if (filter.getBanned() != null) seekColumns.add("banned");
+        if (filter.getMinExperience() != null || filter.getMaxExperience() != null) seekColumns.add("experience");
+        if (filter.getMinLevel() != null || filter.getMaxLevel() != null) seekColumns.add("level");
+        if (filter.getAfter() != null || filter.getBefore() != null) seekColumns.add("birthday");
+
+        //LIKE '%...%' can never seek an index
+        List<String> scanColumns = new ArrayList<>();
+        if (filter.getName() != null) scanColumns.add("name");
+        if (filter.getTitle() != null) scanColumns.add("title");
+
+        String signature = "filter=" + seekColumns + (scanColumns.isEmpty() ? "" : " like=" + scanColumns)
+                + (sortField == null ? " count" : " order=" + sortField);
+
+        boolean supported = isSupported(seekColumns, scanColumns, sortField);
+
+        QueryStats queryStats = stats.computeIfAbsent(signature, key -> new QueryStats(supported));
+        boolean first = queryStats.count.sum() == 0;
+        queryStats.record(nanos);
+
+        if (!supported && (first || nanos > SLOW_QUERY_NANOS)) {
+            LOG.warn("Player query without index support: {} took {} ms", signature,
+                    TimeUnit.NANOSECONDS.toMillis(nanos));
+        }
+    }
+
+    //a filtered query needs an index to seek on one of its filtered columns, whatever the order: walking
+    //an index in sort order still reads every row to filter them. Unfiltered, the rows only have to come
+    //back in sort order, which the primary key does for id
+    private boolean isSupported(Set<String> seekColumns, List<String> scanColumns, String sortField) {
+        if (seekColumns.isEmpty() && scanColumns.isEmpty()) {
+            if (sortField == null || "id".equals(sortField)) return true;
+            for (List<String> index : indexes) {
+                if (index.get(0).equals(sortField)) return true;
+            }
+            return false;
+        }
+
+        for (List<String> index : indexes) {
+            if (seekColumns.contains(index.get(0))) return true;
+        }
+        return false;
+    }
+
+    private List<List<String>> readIndexes() {
+        Map<String, SortedMap<Short, String>> columnsByIndex = new HashMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String table = metaData.storesUpperCaseIdentifiers() ? "PLAYER" : "player";
+            try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), null, table, false, true)) {
+                while (rs.next()) {
+                    String indexName = rs.getString("INDEX_NAME");
+                    String column = rs.getString("COLUMN_NAME");
+                    if (indexName == null || column == null) continue;
+
+                    columnsByIndex.computeIfAbsent(indexName, key -> new TreeMap<>())
+                            .put(rs.getShort("ORDINAL_POSITION"), column.toLowerCase(Locale.ROOT));
+                }
+            }
+        } catch (SQLException e) {
+            LOG.warn("Could not read indexes of the player table", e);
+            return Collections.emptyList();
+        }
+
+        List<List<String>> result = new ArrayList<>();
+        for (SortedMap<Short, String> columns : columnsByIndex.values()) {
+            result.add(new ArrayList<>(columns.values()));
+        }
+        return result;
+    }
+
+    @Override
+    public String getName() {
+        return "index-advisor";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new TreeMap<>();
+        result.put("indexes", indexes.size());
+        stats.forEach((signature, queryStats) -> result.put(signature, queryStats.snapshot()));
+        return result;
+    }
+
+    private static class QueryStats {
+        private final boolean indexed;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+        QueryStats(boolean indexed) {
+            this.indexed = indexed;
+        }
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        Map<String, Object> snapshot() {
+            long n = count.sum();
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("indexed", indexed);
+            result.put("count", n);
+            result.put("meanMs", n == 0 ? 0.0 : totalNanos.sum() / n / 1_000_000.0);
+            result.put("maxMs", maxNanos.get() / 1_000_000.0);
+            return result;
+        }
+    }
+}
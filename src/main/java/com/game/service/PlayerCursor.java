@@ -0,0 +1,129 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import com.game.exceptions.InvalidRequestException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Position in a keyset-paginated player listing: the sort key and id of the last row returned.
+ * Rows are ordered by the sort field with {@code id} as the tiebreaker, so the next page is
+ * a range condition on an index instead of an OFFSET. A null sort key is written without the
+ * key part and sorts before every other key, as NULLs do in ascending order in H2 and MySQL.
+ */
+public class PlayerCursor {
+    private static final String ID = "id";
+    private static final Set<String> FIELDS = new HashSet<>(Arrays.asList("id", "name", "experience", "birthday", "level"));
+
+    private final String fieldName;
+    private final Long lastId;
+    private final Object lastKey;
+
+    private PlayerCursor(String fieldName, Long lastId, Object lastKey) {
+        this.fieldName = fieldName;
+        this.lastId = lastId;
+        this.lastKey = lastKey;
+    }
+
+    public static PlayerCursor start(String fieldName) {
+        checkField(fieldName);
+        return new PlayerCursor(fieldName, null, null);
+    }
+
+    public static PlayerCursor after(Player player, String fieldName) {
+        checkField(fieldName);
+        return new PlayerCursor(fieldName, player.getId(), keyOf(player, fieldName));
+    }
+
+    public static PlayerCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(":", 3);
+            if (parts.length < 2) throw new InvalidRequestException("Invalid cursor");
+
+            String fieldName = parts[0];
+            checkField(fieldName);
+            Object lastKey = parts.length == 3 ? parseKey(fieldName, parts[2]) : null;
+            if (lastKey == null && ID.equals(fieldName)) throw new InvalidRequestException("Invalid cursor");
+            return new PlayerCursor(fieldName, Long.valueOf(parts[1]), lastKey);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = fieldName + ":" + lastId;
+        if (lastKey != null)
+            raw += ":" + (lastKey instanceof Date ? String.valueOf(((Date) lastKey).getTime()) : String.valueOf(lastKey));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public Sort getSort() {
+        return ID.equals(fieldName) ? Sort.by(ID) : Sort.by(fieldName).and(Sort.by(ID));
+    }
+
+    @SuppressWarnings("unchecked")
+    public Specification<Player> toSpecification() {
+        return (root, query, cb) -> {
+            if (lastId == null) return null;
+            if (ID.equals(fieldName)) return cb.greaterThan(root.get(ID), lastId);
+            //the nulls come first, then every other key
+            if (lastKey == null) return cb.or(
+                    cb.isNotNull(root.get(fieldName)),
+                    cb.and(cb.isNull(root.get(fieldName)), cb.greaterThan(root.get(ID), lastId)));
+
+            Comparable<Object> key = (Comparable<Object>) lastKey;
+            return cb.or(
+                    cb.greaterThan(root.get(fieldName), key),
+                    cb.and(cb.equal(root.get(fieldName), key), cb.greaterThan(root.get(ID), lastId)));
+        };
+    }
+
+    private static Object keyOf(Player player, String fieldName) {
+        switch (fieldName) {
+            case "id":
+                return player.getId();
+            case "name":
+                return player.getName();
+            case "experience":
+                return player.getExperience();
+            case "birthday":
+                return player.getBirthday() == null ? null : new Date(player.getBirthday().getTime());
+            case "level":
+                return player.getLevel();
+            default:
+                throw new InvalidRequestException("Invalid cursor");
+        }
+    }
+
+    private static Object parseKey(String fieldName, String value) {
+        switch (fieldName) {
+            case "id":
+                return Long.valueOf(value);
+            case "name":
+                return value;
+            case "experience":
+            case "level":
+                return Integer.valueOf(value);
+            case "birthday":
+                return new Date(Long.parseLong(value));
+            default:
+                throw new InvalidRequestException("Invalid cursor");
+        }
+    }
+
+    private static void checkField(String fieldName) {
+        if (!FIELDS.contains(fieldName)) throw new InvalidRequestException("Invalid cursor");
+    }
+}
@@ -0,0 +1,92 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import com.game.exceptions.InvalidRequestException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The player attributes a client asked for with {@code ?fields=}, in the order of the JSON a full
+ * player is written with. Only these columns are selected, so a set covered by an index is read
+ * without touching the rows.
+ */
+public class PlayerFields {
+    private static final List<String> ALL = Collections.unmodifiableList(Arrays.asList("id", "name", "title", "race",
+            "profession", "birthday", "banned", "experience", "level", "untilNextLevel"));
+
+    private final List<String> names;
+
+    private PlayerFields(List<String> names) {
+        this.names = Collections.unmodifiableList(names);
+    }
+
+    public static PlayerFields parse(String fields) {
+        if (fields == null || fields.trim().isEmpty()) throw new InvalidRequestException("Invalid fields");
+
+        boolean[] requested = new boolean[ALL.size()];
+        for (String field : fields.split(",")) {
+            int index = ALL.indexOf(field.trim());
+            if (index < 0) throw new InvalidRequestException("Unknown field " + field.trim());
+            requested[index] = true;
+        }
+
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < requested.length; i++) {
+            if (requested[i]) names.add(ALL.get(i));
+        }
+        return new PlayerFields(names);
+    }
+
+    public List<String> getNames() {
+        return names;
+    }
+
+    //whether any of the fields changes with the player's experience
+    public boolean includesProgress() {
+        return names.contains("experience") || names.contains("level") || names.contains("untilNextLevel");
+    }
+
+    //for players that are already loaded
+    public Map<String, Object> project(Player player) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (String name : names) {
+            row.put(name, valueOf(player, name));
+        }
+        return row;
+    }
+
+    private static Object valueOf(Player player, String name) {
+        switch (name) {
+            case "id":
+                return player.getId();
+            case "name":
+                return player.getName();
+            case "title":
+                return player.getTitle();
+            case "race":
+                return player.getRace();
+            case "profession":
+                return player.getProfession();
+            case "birthday":
+                return player.getBirthday();
+            case "banned":
+                return player.isBanned();
+            case "experience":
+                return player.getExperience();
+            case "level":
+                return player.getLevel();
+            default:
+                return player.getUntilNextLevel();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.join(",", names);
+    }
+}
@@ -0,0 +1,144 @@
+package com.game.service;
+
+import com.game.entity.Profession;
+import com.game.entity.Race;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+
+/**
+ * Filter parameters shared by every {@code /rest/players} query endpoint.
+ */
+public class PlayerFilter {
+    private String name;
+    private String title;
+    private Race race;
+    private Profession profession;
+    private Long after;
+    private Long before;
+    private Boolean banned;
+    private Integer minExperience;
+    private Integer maxExperience;
+    private Integer minLevel;
+    private Integer maxLevel;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public Race getRace() {
+        return race;
+    }
+
+    public void setRace(Race race) {
+        this.race = race;
+    }
+
+    public Profession getProfession() {
+        return profession;
+    }
+
+    public void setProfession(Profession profession) {
+        this.profession = profession;
+    }
+
+    public Long getAfter() {
+        return after;
+    }
+
+    public void setAfter(Long after) {
+        this.after = after;
+    }
+
+    public Long getBefore() {
+        return before;
+    }
+
+    public void setBefore(Long before) {
+        this.before = before;
+    }
+
+    public Boolean getBanned() {
+        return banned;
+    }
+
+    public void setBanned(Boolean banned) {
+        this.banned = banned;
+    }
+
+    public Integer getMinExperience() {
+        return minExperience;
+    }
+
+    public void setMinExperience(Integer minExperience) {
+        this.minExperience = minExperience;
+    }
+
+    public Integer getMaxExperience() {
+        return maxExperience;
+    }
+
+    public void setMaxExperience(Integer maxExperience) {
+        this.maxExperience = maxExperience;
+    }
+
+    public Integer getMinLevel() {
+        return minLevel;
+    }
+
+    public void setMinLevel(Integer minLevel) {
+        this.minLevel = minLevel;
+    }
+
+    public Integer getMaxLevel() {
+        return maxLevel;
+    }
+
+    public void setMaxLevel(Integer maxLevel) {
+        this.maxLevel = maxLevel;
+    }
+
+    public boolean isEmpty() {
+        return canonicalKey().isEmpty();
+    }
+
+    //same parameters always give the same key, whatever order they were sent in
+    public String canonicalKey() {
+        StringBuilder key = new StringBuilder();
+        append(key, "name", name);
+        append(key, "title", title);
+        append(key, "race", race);
+        append(key, "profession", profession);
+        append(key, "after", after);
+        append(key, "before", before);
+        append(key, "banned", banned);
+        append(key, "minExperience", minExperience);
+        append(key, "maxExperience", maxExperience);
+        append(key, "minLevel", minLevel);
+        append(key, "maxLevel", maxLevel);
+        return key.toString();
+    }
+
+    private static void append(StringBuilder key, String param, Object value) {
+        if (value == null) return;
+        if (key.length() > 0) key.append('&');
+        key.append(param).append('=');
+        try {
+            key.append(URLEncoder.encode(value.toString(), "UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.game.service;
+
+import com.game.dto.ImportResult;
+import com.game.entity.Player;
+import com.game.exceptions.InvalidRequestException;
+import com.game.exceptions.ServiceUnavailableException;
+import com.game.metrics.MetricsSource;
+import com.game.repository.PlayerBatchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streaming import of players. The request thread parses and validates rows into chunks and hands
+ * them to a writer thread through a queue of {@code queueChunks} chunks; when the database falls
+ * behind the queue fills up and parsing, and with it reading the request body, waits. At most
+ * {@code (queueChunks + 2) * batch.chunkSize} players are in memory per import, whatever its size.
+ * <p>
+ * Each chunk is inserted in its own transaction, so an import that fails halfway keeps the chunks
+ * written before. Rejected rows go to an errors file, the last {@code keptErrorFiles} of which can
+ * be downloaded.
+ */
+@Component
+public class PlayerImporter implements MetricsSource, DisposableBean {
+    private static final Logger LOG = LoggerFactory.getLogger(PlayerImporter.class);
+    private static final Chunk END = new Chunk(0);
+
+    private final PlayerService playerService;
+    private final PlayerBatchRepository batchRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate chunkTransaction;
+    private final int chunkSize;
+    private final int queueChunks;
+    private final int keptErrorFiles;
+    private final Semaphore permits;
+    private final ExecutorService writers;
+    private final Map<String, Job> running = new ConcurrentHashMap<>();
+    private final Map<String, Path> errorFiles = new LinkedHashMap<>();
+    private final LongAdder imports = new LongAdder();
+    private final LongAdder rejectedImports = new LongAdder();
+    private final LongAdder createdRows = new LongAdder();
+    private final LongAdder failedRows = new LongAdder();
+
+    @Autowired
+    public PlayerImporter(PlayerService playerService, PlayerBatchRepository batchRepository,
+                          ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+                          VirtualThreads virtualThreads,
+                          @Value("${batch.chunkSize:500}") int chunkSize,
+                          @Value("${import.queueChunks:4}") int queueChunks,
+                          @Value("${import.maxConcurrent:2}") int maxConcurrent,
+                          @Value("${import.keptErrorFiles:20}") int keptErrorFiles) {
+        this.playerService = playerService;
+        this.batchRepository = batchRepository;
+        this.eventPublisher = eventPublisher;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.queueChunks = queueChunks;
+        this.keptErrorFiles = keptErrorFiles;
+        this.permits = new Semaphore(maxConcurrent);
+        //the permits already bound the writers, so virtual ones are not pooled
+        this.writers = virtualThreads.isActive()
+                ? virtualThreads.newPerTaskExecutor("player-import")
+                : Executors.newFixedThreadPool(maxConcurrent, virtualThreads.newFactory("player-import"));
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        writers.shutdownNow();
+        synchronized (errorFiles) {
+            for (Path file : errorFiles.values()) {
+                Files.deleteIfExists(file);
+            }
+            errorFiles.clear();
+        }
+    }
+
+    public ImportResult importPlayers(PlayerReader reader) throws IOException {
+        if (!permits.tryAcquire()) {
+            rejectedImports.increment();
+            throw new ServiceUnavailableException("Too many imports running");
+        }
+        try {
+            Job job = new Job(UUID.randomUUID().toString(), Files.createTempFile("player-import-", ".csv"));
+            running.put(job.id, job);
+            try {
+                return run(job, reader);
+            } finally {
+                running.remove(job.id);
+                job.closeErrors();
+                keepErrors(job);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    //the rejected rows of a finished import as CSV: row number and reason
+    public Optional<Path> errors(String id) {
+        synchronized (errorFiles) {
+            return Optional.ofNullable(errorFiles.get(id));
+        }
+    }
+
+    private ImportResult run(Job job, PlayerReader reader) throws IOException {
+        long start = System.nanoTime();
+        BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(queueChunks);
+        Future<?> writer = writers.submit(() -> write(job, queue));
+
+        try {
+            Chunk chunk = new Chunk(chunkSize);
+            while (true) {
+                long row = job.rows.get() + 1;
+                Player player;
+                try {
+                    player = reader.next();
+                    if (player == null) break;
+                    job.rows.set(row);
+                    playerService.prepareNewPlayer(player);
+                    player.setId(null);
+                } catch (InvalidRequestException e) {
+                    job.rows.set(row);
+                    job.failed(row, e.getMessage());
+                    continue;
+                }
+
+                chunk.add(row, player);
+                if (chunk.players.size() == chunkSize) {
+                    hand(queue, chunk, writer);
+                    chunk = new Chunk(chunkSize);
+                }
+            }
+            if (!chunk.players.isEmpty()) hand(queue, chunk, writer);
+        } catch (IOException | RuntimeException e) {
+            //the writer finishes what it was given before the failure is reported
+            try {
+                handEnd(queue, writer);
+                await(writer);
+            } catch (IOException | RuntimeException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        handEnd(queue, writer);
+        await(writer);
+
+        ImportResult result = new ImportResult(job.id, job.rows.get(), job.created.get(), job.failed.get(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        LOG.info("Import {} finished: {} rows, {} created, {} failed in {} ms", job.id, result.getRows(),
+                result.getCreated(), result.getFailed(), result.getElapsedMillis());
+        return result;
+    }
+
+    //blocks while the writer is behind, gives up if it has died
+    private void hand(BlockingQueue<Chunk> queue, Chunk chunk, Future<?> writer) throws IOException {
+        try {
+            while (!queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                if (writer.isDone()) await(writer);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writer.cancel(true);
+            throw new InterruptedIOException("Import interrupted");
+        }
+    }
+
+    private void handEnd(BlockingQueue<Chunk> queue, Future<?> writer) throws IOException {
+        try {
+            while (!writer.isDone() && !queue.offer(END, 100, TimeUnit.MILLISECONDS)) {
+                //waiting for room, the writer is still draining
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writer.cancel(true);
+            throw new InterruptedIOException("Import interrupted");
+        }
+    }
+
+    private void await(Future<?> writer) throws IOException {
+        try {
+            writer.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writer.cancel(true);
+            throw new InterruptedIOException("Import interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) throw ((UncheckedIOException) cause).getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private Void write(Job job, BlockingQueue<Chunk> queue) throws InterruptedException {
+        for (Chunk next = queue.take(); next != END; next = queue.take()) {
+            Chunk chunk = next;
+            try {
+                chunkTransaction.executeWithoutResult(status -> {
+                    batchRepository.insertAll(chunk.players);
+                    eventPublisher.publishEvent(PlayersChangedEvent.saved(chunk.players));
+                });
+            } catch (DataAccessException e) {
+                String error = "Insert failed: " + e.getMostSpecificCause().getMessage();
+                for (long row : chunk.rows) {
+                    job.failed(row, error);
+                }
+                continue;
+            }
+            batchRepository.evictQueryCache();
+            job.created.addAndGet(chunk.players.size());
+            createdRows.add(chunk.players.size());
+        }
+        return null;
+    }
+
+    private void keepErrors(Job job) throws IOException {
+        if (job.failed.get() == 0) {
+            Files.deleteIfExists(job.errorFile);
+            return;
+        }
+
+        List<Path> evicted = new ArrayList<>();
+        synchronized (errorFiles) {
+            errorFiles.put(job.id, job.errorFile);
+            Iterator<Path> oldest = errorFiles.values().iterator();
+            while (errorFiles.size() > keptErrorFiles && oldest.hasNext()) {
+                evicted.add(oldest.next());
+                oldest.remove();
+            }
+        }
+        for (Path file : evicted) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "player-import";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("imports", imports.sum());
+        result.put("rejectedImports", rejectedImports.sum());
+        result.put("createdRows", createdRows.sum());
+        result.put("failedRows", failedRows.sum());
+
+        Map<String, Object> progress = new LinkedHashMap<>();
+        for (Job job : running.values()) {
+            Map<String, Object> counts = new LinkedHashMap<>();
+            counts.put("rows", job.rows.get());
+            counts.put("created", job.created.get());
+            counts.put("failed", job.failed.get());
+            progress.put(job.id, counts);
+        }
+        result.put("running", progress);
+        return result;
+    }
+
+    private static class Chunk {
+        final List<Player> players;
+        final long[] rows;
+
+        Chunk(int size) {
+            this.players = new ArrayList<>(size);
+            this.rows = new long[size];
+        }
+
+        void add(long row, Player player) {
+            rows[players.size()] = row;
+            players.add(player);
+        }
+    }
+
+    private class Job {
+        final String id;
+        final Path errorFile;
+        final BufferedWriter errors;
+        final AtomicLong rows = new AtomicLong();
+        final AtomicLong created = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+
+        Job(String id, Path errorFile) throws IOException {
+            this.id = id;
+            this.errorFile = errorFile;
+            this.errors = Files.newBufferedWriter(errorFile, StandardCharsets.UTF_8);
+            this.errors.write("row,error\r\n");
+            imports.increment();
+        }
+
+        //called from the parsing and the writing thread
+        synchronized void failed(long row, String error) {
+            failed.incrementAndGet();
+            failedRows.increment();
+            try {
+                errors.write(Long.toString(row));
+                errors.write(",\"");
+                errors.write(String.valueOf(error).replace("\"", "\"\"").replace('\r', ' ').replace('\n', ' '));
+                errors.write("\"\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        synchronized void closeErrors() throws IOException {
+            errors.close();
+        }
+    }
+}
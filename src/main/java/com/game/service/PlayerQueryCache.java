@@ -0,0 +1,103 @@
+package com.game.service;
+
+import com.game.metrics.MetricsSource;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of player counts and pages keyed on {@link PlayerFilter#canonicalKey()}. Every
+ * committed player write drops the whole cache, since any write can move rows in and out of any filter.
+ */
+@Component
+public class PlayerQueryCache implements MetricsSource {
+    private final boolean enabled;
+    private final Cache<String, Object> cache;
+    //bumped on every invalidation, a result loaded across one is not stored
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder stalePutsSkipped = new LongAdder();
+
+    @Autowired
+    public PlayerQueryCache(@Value("${cache.query.enabled:false}") boolean enabled,
+                            @Value("${cache.query.maxEntries:10000}") long maxEntries,
+                            @Value("${cache.query.ttlSeconds:30}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> loader) {
+        if (!enabled) return loader.get();
+
+        Object cached = cache.getIfPresent(key);
+        if (cached != null) return (T) cached;
+
+        long loadedAt = generation.get();
+        T value = loader.get();
+        if (value == null) return null;
+
+        cache.asMap().compute(key, (k, current) -> {
+            if (generation.get() == loadedAt) return value;
+            stalePutsSkipped.increment();
+            return current;
+        });
+        return value;
+    }
+
+    public static String countKey(PlayerFilter filter) {
+        return "count?" + filter.canonicalKey();
+    }
+
+    public static String pageKey(String kind, PlayerFilter filter, int pageNumber, int pageSize, String order) {
+        return kind + "?" + filter.canonicalKey() + "#" + order + ":" + pageNumber + ":" + pageSize;
+    }
+
+    @TransactionalEventListener
+    public void onPlayersChanged(PlayersChangedEvent event) {
+        if (!enabled) return;
+
+        generation.incrementAndGet();
+        invalidations.increment();
+        cache.invalidateAll();
+    }
+
+    @Override
+    public String getName() {
+        return "query-cache";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", enabled);
+        snapshot.put("size", cache.estimatedSize());
+        snapshot.put("hits", stats.hitCount());
+        snapshot.put("misses", stats.missCount());
+        snapshot.put("hitRate", stats.hitRate());
+        snapshot.put("evictions", stats.evictionCount());
+        snapshot.put("invalidations", invalidations.sum());
+        snapshot.put("stalePutsSkipped", stalePutsSkipped.sum());
+        return snapshot;
+    }
+}
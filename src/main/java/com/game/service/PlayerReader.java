@@ -0,0 +1,14 @@
+package com.game.service;
+
+import com.game.entity.Player;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Players parsed one row at a time from an import body.
+ */
+public interface PlayerReader extends Closeable {
+    //the next row, null at the end; a row that cannot be parsed is consumed and throws InvalidRequestException
+    Player next() throws IOException;
+}
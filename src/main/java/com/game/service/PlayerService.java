@@ -1,22 +1,47 @@
 package com.game.service;
 
+import com.game.dto.BatchCreateResult;
+import com.game.dto.PlayerPage;
+import com.game.dto.PlayerPatch;
+import com.game.dto.PlayerProgress;
 import com.game.entity.Player;
 import com.game.entity.Profession;
 import com.game.entity.Race;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface PlayerService {
     Page<Player> getAllPlayers(Specification<Player> playerSpecification, Pageable pageable);
     Long getPlayersCount(Specification<Player> playerSpecification);
+    PlayerPage getPlayersPage(PlayerFilter filter, Pageable pageable);
+    Slice<Player> getPlayersSlice(PlayerFilter filter, Pageable pageable);
+    Slice<Player> getPlayersSlice(PlayerFilter filter, PlayerCursor cursor, int pageSize);
+    Long getPlayersCount(PlayerFilter filter);
+    List<Map<String, Object>> getPlayersFields(PlayerFilter filter, Pageable pageable, PlayerFields fields);
+    void exportPlayers(PlayerFilter filter, Sort sort, Consumer<Player> sink);
     Player createPlayer(Player player);
+    BatchCreateResult createPlayers(List<Player> players);
     Player getPlayerByID(Long id);
+    Long getKnownVersion(Long id);
+    Map<String, Object> getPlayerFields(Long id, PlayerFields fields);
     Player updatePlayer(Player player, Long id);
+    Player updatePlayer(Player player, Long id, Long expectedVersion);
+    boolean updatePlayerFields(Player player, Long id);
+    boolean updatePlayerFields(Player player, Long id, Long expectedVersion);
+    PlayerProgress awardExperience(Long id, Integer delta);
+    PlayerProgress awardExperience(Long id, Integer delta, Long expectedVersion, boolean rebaseOnConflict);
     Map<String, Boolean> deletePlayer(Long id);
+    long deletePlayers(List<Long> ids);
+    long updatePlayers(PlayerFilter filter, PlayerPatch patch);
+    long deletePlayers(PlayerFilter filter);
 
     Specification<Player> filterByName(String name);
     Specification<Player> filterByTitle(String title);
@@ -26,6 +51,7 @@ public interface PlayerService {
     Specification<Player> filterByLevel(Integer min, Integer max);
     Specification<Player> filterByBirthday(Long after, Long before);
     Specification<Player> filterByBanned(Boolean isBanned);
+    Specification<Player> filterBy(PlayerFilter filter);
 
     void validateId(Long id);
     void validateName(String name);
@@ -34,5 +60,6 @@ public interface PlayerService {
     void validateExperience(Integer experience);
     void validateProfession(Profession profession);
     void validateBirthday(Date birthday);
+    void prepareNewPlayer(Player player);
     Player checkForNullsAndSet(Player player, Long id);
 }
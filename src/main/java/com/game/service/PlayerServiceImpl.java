@@ -1,48 +1,95 @@
 package com.game.service;
 
+import com.game.dto.BatchCreateResult;
+import com.game.dto.PlayerPage;
+import com.game.dto.PlayerPatch;
+import com.game.dto.PlayerProgress;
 import com.game.entity.Player;
 import com.game.entity.Profession;
 import com.game.entity.Race;
 import com.game.exceptions.DataNotFoundException;
 import com.game.exceptions.InvalidRequestException;
+import com.game.exceptions.PreconditionFailedException;
+import com.game.readmodel.ColumnarReadModel;
+import com.game.repository.PlayerBatchRepository;
 import com.game.repository.PlayerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Calendar;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Service
 @Transactional
 public class PlayerServiceImpl implements PlayerService {
-    private final static int NAME_MAX_LENGTH = 12;
-    private final static int TITLE_MAX_LENGTH = 30;
-    private final static int EXPERIENCE_MIN_VALUE = 0;
-    private final static int EXPERIENCE_MAX_VALUE = 10000000;
-    private final static long DATE_MIN_VALUE = 2000L;
-    private final static long DATE_MAX_VALUE = 3000L;
+    private final static int MAX_IDS_PER_DELETE = 1000;
+    private final static Map<String, Boolean> DELETED = Collections.singletonMap("Deleted", Boolean.TRUE);
 
 
     private final PlayerRepository playerRepository;
+    private final PlayerValidator validator;
+    private final IndexAdvisor indexAdvisor;
+    private final ColumnarReadModel readModel;
+    private final PlayerQueryCache queryCache;
+    private final PlayerVersions playerVersions;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlayerBatchRepository batchRepository;
+    private final ExperienceWriteBehind experienceBuffer;
+    private final TransactionTemplate chunkTransaction;
+    private final int batchChunkSize;
+    private final int batchMaxSize;
+    private final int bulkChunkSize;
+    private final int updateAttempts;
+    private final int exportFetchSize;
 
 
     @Autowired
-    public PlayerServiceImpl(PlayerRepository playerRepository) {
+    public PlayerServiceImpl(PlayerRepository playerRepository, PlayerValidator validator, IndexAdvisor indexAdvisor,
+                             ColumnarReadModel readModel, PlayerQueryCache queryCache, PlayerVersions playerVersions,
+                             ApplicationEventPublisher eventPublisher, PlayerBatchRepository batchRepository,
+                             ExperienceWriteBehind experienceBuffer,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${batch.chunkSize:500}") int batchChunkSize,
+                             @Value("${batch.maxSize:50000}") int batchMaxSize,
+                             @Value("${bulk.chunkSize:1000}") int bulkChunkSize,
+                             @Value("${optimistic.updateAttempts:3}") int updateAttempts,
+                             @Value("${export.fetchSize:1000}") int exportFetchSize) {
         this.playerRepository = playerRepository;
-    }
-
-    public Integer currentLevelCalc(int exp) {
-        return (((int) Math.sqrt(2500 + 200 * exp)) - 50) / 100;
-    }
-
-    public Integer experienceToGetNextLevelCalc(int level, int exp) {
-        return 50 * (level + 1) * (level + 2) - exp;
+        this.validator = validator;
+        this.indexAdvisor = indexAdvisor;
+        this.readModel = readModel;
+        this.queryCache = queryCache;
+        this.playerVersions = playerVersions;
+        this.eventPublisher = eventPublisher;
+        this.batchRepository = batchRepository;
+        this.experienceBuffer = experienceBuffer;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.batchChunkSize = batchChunkSize;
+        this.batchMaxSize = batchMaxSize;
+        this.bulkChunkSize = bulkChunkSize;
+        this.updateAttempts = updateAttempts;
+        this.exportFetchSize = exportFetchSize;
     }
 
     @Override
@@ -55,8 +102,182 @@ public class PlayerServiceImpl implements PlayerService {
         return playerRepository.count(playerSpecification);
     }
 
+    //no transaction of its own, so a cache hit does not take a connection from the pool
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public PlayerPage getPlayersPage(PlayerFilter filter, Pageable pageable) {
+        return queryCache.get(pageKey("page", filter, pageable), () -> loadPlayersPage(filter, pageable));
+    }
+
+    private PlayerPage loadPlayersPage(PlayerFilter filter, Pageable pageable) {
+        if (readModel.isEnabled()) return readModel.page(filter, pageable);
+
+        long start = System.nanoTime();
+        try {
+            return playerRepository.findPage(filterBy(filter), pageable);
+        } finally {
+            indexAdvisor.record(filter, sortField(pageable.getSort()), System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Slice<Player> getPlayersSlice(PlayerFilter filter, Pageable pageable) {
+        return queryCache.get(pageKey("slice", filter, pageable), () -> loadPlayersSlice(filter, pageable));
+    }
+
+    private Slice<Player> loadPlayersSlice(PlayerFilter filter, Pageable pageable) {
+        if (readModel.isEnabled()) return readModel.slice(filter, pageable);
+
+        long start = System.nanoTime();
+        try {
+            return playerRepository.findSlice(filterBy(filter), pageable);
+        } finally {
+            indexAdvisor.record(filter, sortField(pageable.getSort()), System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Player> getPlayersSlice(PlayerFilter filter, PlayerCursor cursor, int pageSize) {
+        long start = System.nanoTime();
+        try {
+            return playerRepository.findSlice(filterBy(filter).and(cursor.toSpecification()),
+                    PageRequest.of(0, pageSize, cursor.getSort()));
+        } finally {
+            indexAdvisor.record(filter, cursor.getFieldName(), System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<Map<String, Object>> getPlayersFields(PlayerFilter filter, Pageable pageable, PlayerFields fields) {
+        return queryCache.get(pageKey("fields:" + fields, filter, pageable),
+                () -> loadPlayersFields(filter, pageable, fields));
+    }
+
+    private List<Map<String, Object>> loadPlayersFields(PlayerFilter filter, Pageable pageable, PlayerFields fields) {
+        if (readModel.isEnabled()) {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (Player player : readModel.slice(filter, pageable).getContent()) {
+                rows.add(fields.project(player));
+            }
+            return rows;
+        }
+
+        long start = System.nanoTime();
+        try {
+            return playerRepository.findFields(filterBy(filter), pageable, fields.getNames());
+        } finally {
+            indexAdvisor.record(filter, sortField(pageable.getSort()), System.nanoTime() - start);
+        }
+    }
+
+    //every matching player in order, read through a cursor so only the current row is held
+    @Override
+    @Transactional(readOnly = true)
+    public void exportPlayers(PlayerFilter filter, Sort sort, Consumer<Player> sink) {
+        playerRepository.scroll(filterBy(filter), sort, exportFetchSize, sink);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Long getPlayersCount(PlayerFilter filter) {
+        return queryCache.get(PlayerQueryCache.countKey(filter), () -> loadPlayersCount(filter));
+    }
+
+    private Long loadPlayersCount(PlayerFilter filter) {
+        if (readModel.isEnabled()) return readModel.count(filter);
+
+        long start = System.nanoTime();
+        try {
+            return playerRepository.countMatching(filterBy(filter));
+        } finally {
+            indexAdvisor.record(filter, null, System.nanoTime() - start);
+        }
+    }
+
+    private static String pageKey(String kind, PlayerFilter filter, Pageable pageable) {
+        return PlayerQueryCache.pageKey(kind, filter, pageable.getPageNumber(), pageable.getPageSize(),
+                pageable.getSort().toString());
+    }
+
+    private static String sortField(Sort sort) {
+        for (Sort.Order order : sort) {
+            return order.getProperty();
+        }
+        return "id";
+    }
+
     @Override
     public Player createPlayer(Player player) {
+        prepareNewPlayer(player);
+
+        Player saved = playerRepository.saveAndFlush(player);
+        eventPublisher.publishEvent(PlayersChangedEvent.saved(Collections.singletonList(saved)));
+        return saved;
+    }
+
+    //every chunk commits on its own, a failed chunk does not roll back the ones before it
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchCreateResult createPlayers(List<Player> players) {
+        if (players == null) throw new InvalidRequestException("Invalid players");
+        if (players.size() > batchMaxSize) throw new InvalidRequestException("Too many players in one batch");
+
+        BatchCreateResult result = new BatchCreateResult(players.size());
+        List<Player> chunk = new ArrayList<>(batchChunkSize);
+        List<Integer> indexes = new ArrayList<>(batchChunkSize);
+
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            try {
+                if (player == null) throw new InvalidRequestException("Invalid player");
+                prepareNewPlayer(player);
+                player.setId(null);
+            } catch (InvalidRequestException e) {
+                result.failed(i, e.getMessage());
+                continue;
+            }
+
+            chunk.add(player);
+            indexes.add(i);
+            if (chunk.size() == batchChunkSize) {
+                insertChunk(chunk, indexes, result);
+                chunk.clear();
+                indexes.clear();
+            }
+        }
+        if (!chunk.isEmpty()) insertChunk(chunk, indexes, result);
+
+        return result;
+    }
+
+    private void insertChunk(List<Player> chunk, List<Integer> indexes, BatchCreateResult result) {
+        List<Player> inserted = new ArrayList<>(chunk);
+        try {
+            chunkTransaction.executeWithoutResult(status -> {
+                batchRepository.insertAll(inserted);
+                eventPublisher.publishEvent(PlayersChangedEvent.saved(inserted));
+            });
+        } catch (DataAccessException e) {
+            String error = "Insert failed: " + e.getMostSpecificCause().getMessage();
+            for (Integer index : indexes) {
+                result.failed(index, error);
+            }
+            return;
+        }
+
+        batchRepository.evictQueryCache();
+        for (int i = 0; i < inserted.size(); i++) {
+            result.created(indexes.get(i), inserted.get(i).getId());
+        }
+    }
+
+    //validates a player to be created and fills in the derived fields, needs no connection
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void prepareNewPlayer(Player player) {
         validateName(player.getName());
         validateTitle(player.getTitle());
         validateRace(player.getRace());
@@ -66,43 +287,247 @@ public class PlayerServiceImpl implements PlayerService {
 
         if (player.isBanned() == null) player.setBanned(true);
 
-        player.setLevel(currentLevelCalc(player.getExperience()));
-        player.setUntilNextLevel(experienceToGetNextLevelCalc(player.getLevel(), player.getExperience()));
-
-        return playerRepository.saveAndFlush(player);
+        player.setLevel(validator.currentLevelCalc(player.getExperience()));
+        player.setUntilNextLevel(validator.experienceToGetNextLevelCalc(player.getLevel(), player.getExperience()));
     }
 
     @Override
     public Player getPlayerByID(Long id) {
+        return withPendingExperience(loadPlayer(id));
+    }
+
+    //a player with buffered experience is ahead of its version, so it has none to compare with
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Long getKnownVersion(Long id) {
+        if (id == null || (experienceBuffer.isEnabled() && experienceBuffer.pending(id) != 0)) return null;
+        return playerVersions.version(id);
+    }
+
+    private Player loadPlayer(Long id) {
         validateId(id);
         return playerRepository
                 .findById(id)
                 .orElseThrow(() -> new DataNotFoundException("No data for player with ID:" + id));
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> getPlayerFields(Long id, PlayerFields fields) {
+        validateId(id);
+        //the buffered experience is only known to the entity path
+        if (fields.includesProgress() && experienceBuffer.isEnabled() && experienceBuffer.pending(id) != 0)
+            return fields.project(getPlayerByID(id));
+
+        List<Map<String, Object>> rows = playerRepository.findFields((root, query, cb) -> cb.equal(root.get("id"), id),
+                PageRequest.of(0, 1), fields.getNames());
+        if (rows.isEmpty()) throw new DataNotFoundException("No data for player with ID:" + id);
+        return rows.get(0);
+    }
+
+    //a copy with the experience awarded but not yet written, the entity itself is left alone
+    private Player withPendingExperience(Player player) {
+        if (!experienceBuffer.isEnabled()) return player;
+        long delta = experienceBuffer.pending(player.getId());
+        if (delta == 0) return player;
+
+        int experience = validator.clampExperience(player.getExperience() + delta);
+        int level = validator.currentLevelCalc(experience);
+        Player merged = new Player(player.getId(), player.getName(), player.getTitle(), player.getRace(),
+                player.getProfession(), experience, level, validator.experienceToGetNextLevelCalc(level, experience),
+                player.getBirthday(), player.isBanned());
+        merged.setVersion(player.getVersion());
+        return merged;
+    }
+
+    //one UPDATE of the supplied columns, then the row read back on the same connection: MySQL has no
+    //UPDATE ... RETURNING, so the new state costs a second round trip unless the client asks for none
     @Override
     public Player updatePlayer(Player player, Long id) {
-        Player updatePlayer = checkForNullsAndSet(player, id);
+        return updatePlayer(player, id, null);
+    }
+
+    @Override
+    public Player updatePlayer(Player player, Long id, Long expectedVersion) {
+        if (!updatePlayerFields(player, id, expectedVersion)) return getPlayerByID(id);
+
+        Player updated = playerRepository
+                .findDetached(id)
+                .orElseThrow(() -> new DataNotFoundException("No data for player with ID:" + id));
+        //the column is a DATE, a birthday is answered as sent, as the entity-based update did
+        if (player.getBirthday() != null) updated.setBirthday(player.getBirthday());
+        return updated;
+    }
+
+    @Override
+    public boolean updatePlayerFields(Player player, Long id) {
+        return updatePlayerFields(player, id, null);
+    }
+
+    //with an expected version the row is only updated at that version; the fields are absolute values,
+    //so an update made against another version is never re-applied
+    @Override
+    public boolean updatePlayerFields(Player player, Long id, Long expectedVersion) {
+        validateId(id);
+        if (player.getName() != null) validateName(player.getName());
+        if (player.getTitle() != null) validateTitle(player.getTitle());
+        if (player.getRace() != null) validateRace(player.getRace());
+        if (player.getProfession() != null) validateProfession(player.getProfession());
+        if (player.getBirthday() != null) validateBirthday(player.getBirthday());
+        if (player.getExperience() != null) validateExperience(player.getExperience());
+
+        if (player.getName() == null && player.getTitle() == null && player.getRace() == null
+                && player.getProfession() == null && player.getBirthday() == null && player.isBanned() == null
+                && player.getExperience() == null) {
+            if (expectedVersion != null) checkVersion(id, expectedVersion);
+            return false;
+        }
+
+        //a set experience replaces the awards buffered so far, but not one a running flush is writing
+        int rows = player.getExperience() != null && experienceBuffer.isEnabled()
+                ? experienceBuffer.overwrite(id, () -> playerRepository.updateFields(id, player, expectedVersion))
+                : playerRepository.updateFields(id, player, expectedVersion);
+        if (rows == 0) {
+            if (expectedVersion == null) throw new DataNotFoundException("No data for player with ID:" + id);
+            checkVersion(id, expectedVersion);
+            //versions only go up, the row did not match because it is past the expected version
+            throw new PreconditionFailedException("Player " + id + " changed during the update");
+        }
+        eventPublisher.publishEvent(PlayersChangedEvent.changed(Collections.singletonList(id)));
+        return true;
+    }
+
+    //the committed version, which has to be the expected one when that is given
+    private long checkVersion(Long id, Long expectedVersion) {
+        long current = playerRepository.findVersion(id)
+                .orElseThrow(() -> new DataNotFoundException("No data for player with ID:" + id));
+        if (expectedVersion != null && current != expectedVersion)
+            throw new PreconditionFailedException("Player " + id + " is at version " + current);
+        return current;
+    }
 
-        updatePlayer.setLevel(currentLevelCalc(updatePlayer.getExperience()));
-        updatePlayer.setUntilNextLevel(experienceToGetNextLevelCalc(updatePlayer.getLevel(), updatePlayer.getExperience()));
+    //the database adds the delta, so concurrent awards never overwrite each other
+    @Override
+    public PlayerProgress awardExperience(Long id, Integer delta) {
+        return awardExperience(id, delta, null, false);
+    }
+
+    //with an expected version the award is only made at that version; a delta commutes with whatever
+    //changed the player in between, so a rebased award is retried at the current version instead of
+    //failing, up to updateAttempts times
+    @Override
+    public PlayerProgress awardExperience(Long id, Integer delta, Long expectedVersion, boolean rebaseOnConflict) {
+        validateId(id);
+        validator.validateExperienceDelta(delta);
+
+        //buffered, the row is only read (from the cache where there is one) and written on the next flush;
+        //a conditional award needs the committed version, so it is never buffered
+        if (expectedVersion == null && experienceBuffer.isEnabled()) {
+            Player player = loadPlayer(id);
+            experienceBuffer.add(id, delta);
+            int experience = validator.clampExperience(player.getExperience() + experienceBuffer.pending(id));
+            int level = validator.currentLevelCalc(experience);
+            return new PlayerProgress(id, experience, level, validator.experienceToGetNextLevelCalc(level, experience));
+        }
+
+        Long version = expectedVersion;
+        OptionalInt awarded;
+        for (int attempt = 1; !(awarded = playerRepository.addExperience(id, delta, version)).isPresent(); attempt++) {
+            if (version == null) throw new DataNotFoundException("No data for player with ID:" + id);
+            version = checkVersion(id, rebaseOnConflict && attempt < updateAttempts ? null : version);
+        }
+        int experience = awarded.getAsInt();
+        eventPublisher.publishEvent(PlayersChangedEvent.changed(Collections.singletonList(id)));
 
-        return playerRepository.save(updatePlayer);
+        int level = validator.currentLevelCalc(experience);
+        return new PlayerProgress(id, experience, level, validator.experienceToGetNextLevelCalc(level, experience));
     }
 
     @Override
     public Map<String, Boolean> deletePlayer(Long id) {
-        playerRepository.delete(getPlayerByID(id));
+        validateId(id);
+        if (experienceBuffer.isEnabled()) experienceBuffer.discard(id);
+        if (playerRepository.deleteByIds(Collections.singletonList(id)) == 0)
+            throw new DataNotFoundException("No data for player with ID:" + id);
+        eventPublisher.publishEvent(PlayersChangedEvent.deleted(Collections.singletonList(id)));
+
+        return DELETED;
+    }
+
+    //ids that do not exist are skipped, the result is the number of deleted players
+    @Override
+    public long deletePlayers(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) throw new InvalidRequestException("No ids");
+        if (ids.size() > MAX_IDS_PER_DELETE) throw new InvalidRequestException("Too many ids in one delete");
+        Set<Long> distinct = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (id == null) throw new InvalidRequestException("Invalid ID");
+            validateId(id);
+            distinct.add(id);
+        }
+        if (experienceBuffer.isEnabled()) distinct.forEach(experienceBuffer::discard);
+
+        int deleted = playerRepository.deleteByIds(distinct);
+        if (deleted > 0) eventPublisher.publishEvent(PlayersChangedEvent.deleted(new ArrayList<>(distinct)));
+        return deleted;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long updatePlayers(PlayerFilter filter, PlayerPatch patch) {
+        if (patch == null || (patch.getBanned() == null && patch.getExperience() == null
+                && patch.getExperienceDelta() == null))
+            throw new InvalidRequestException("Empty patch");
+        if (patch.getExperience() != null && patch.getExperienceDelta() != null)
+            throw new InvalidRequestException("Either experience or experienceDelta");
+        if (patch.getExperience() != null) validateExperience(patch.getExperience());
+        //buffered awards go in before the patch, not on top of it
+        if (patch.getExperience() != null && experienceBuffer.isEnabled()) experienceBuffer.flush();
+
+        Specification<Player> specification = filterBy(filter);
+        return inChunks(specification, (afterId, ids) ->
+                playerRepository.updateAll(specification, patch, afterId, ids.get(ids.size() - 1)), PlayersChangedEvent::changed);
+    }
 
-        Map<String, Boolean> response = new HashMap<>();
-        response.put("Deleted", Boolean.TRUE);
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long deletePlayers(PlayerFilter filter) {
+        if (filter.isEmpty()) throw new InvalidRequestException("Bulk delete needs a filter");
+
+        Specification<Player> specification = filterBy(filter);
+        return inChunks(specification, (afterId, ids) ->
+                playerRepository.deleteAll(specification, afterId, ids.get(ids.size() - 1)), PlayersChangedEvent::deleted);
+    }
 
-        return response;
+    //walks the matching ids in chunks of one transaction each, so row locks are held briefly
+    private long inChunks(Specification<Player> specification, ChunkWork work,
+                          Function<List<Long>, PlayersChangedEvent> event) {
+        long affected = 0;
+        long afterId = 0;
+        while (true) {
+            long from = afterId;
+            long[] chunk = chunkTransaction.execute(status -> {
+                List<Long> ids = playerRepository.findIds(specification, from, bulkChunkSize);
+                if (ids.isEmpty()) return null;
+
+                int rows = work.apply(from, ids);
+                eventPublisher.publishEvent(event.apply(ids));
+                return new long[]{rows, ids.get(ids.size() - 1)};
+            });
+            if (chunk == null) return affected;
+
+            affected += chunk[0];
+            afterId = chunk[1];
+        }
+    }
+
+    private interface ChunkWork {
+        int apply(long afterId, List<Long> ids);
     }
 
     @Override
     public Player checkForNullsAndSet(Player player, Long id) {
-        Player myPlayer = getPlayerByID(id);
+        Player myPlayer = loadPlayer(id);
 
         if (player.getName() != null) {
             validateName(player.getName());
@@ -208,53 +633,50 @@ public class PlayerServiceImpl implements PlayerService {
         };
     }
 
+    @Override
+    public Specification<Player> filterBy(PlayerFilter filter) {
+        return Specification.where(filterByName(filter.getName()))
+                .and(filterByTitle(filter.getTitle()))
+                .and(filterByRace(filter.getRace()))
+                .and(filterByProfession(filter.getProfession()))
+                .and(filterByExperience(filter.getMinExperience(), filter.getMaxExperience()))
+                .and(filterByLevel(filter.getMinLevel(), filter.getMaxLevel()))
+                .and(filterByBirthday(filter.getAfter(), filter.getBefore()))
+                .and(filterByBanned(filter.getBanned()));
+    }
+
     @Override
     public void validateId(Long id) {
-        if (!id.toString().matches("^[0-9]+$") || id <= 0)
-            throw new InvalidRequestException("Invalid ID");
+        validator.validateId(id);
     }
 
     @Override
     public void validateName(String name) {
-        if (name == null || name.isEmpty() || name.length() > NAME_MAX_LENGTH)
-            throw new InvalidRequestException("Invalid name");
+        validator.validateName(name);
     }
 
     @Override
     public void validateTitle(String title) {
-        if (title == null || title.isEmpty() || title.length() > TITLE_MAX_LENGTH)
-            throw new InvalidRequestException("Invalid title");
+        validator.validateTitle(title);
     }
 
     @Override
     public void validateRace(Race race) {
-        if (race == null || !race.toString().matches("^[A-Z]+$"))
-            throw new InvalidRequestException("Invalid race");
+        validator.validateRace(race);
     }
 
     @Override
     public void validateProfession(Profession profession) {
-        if (profession == null || !profession.toString().matches("^[A-Z]+$"))
-            throw new InvalidRequestException("Invalid profession");
+        validator.validateProfession(profession);
     }
 
     @Override
     public void validateBirthday(Date birthday) {
-        if (birthday == null || birthday.getTime() < 0)
-            throw new InvalidRequestException("Invalid birthday");
-
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTimeInMillis(birthday.getTime());
-
-        if (calendar.get(Calendar.YEAR) < DATE_MIN_VALUE || calendar.get(Calendar.YEAR) > DATE_MAX_VALUE)
-            throw new InvalidRequestException("Birthday is out of bounds");
+        validator.validateBirthday(birthday);
     }
 
     @Override
     public void validateExperience(Integer experience) {
-        if (!experience.toString().matches("^[0-9]+$")
-                || experience < EXPERIENCE_MIN_VALUE
-                || experience > EXPERIENCE_MAX_VALUE)
-            throw new InvalidRequestException("Invalid Experience");
+        validator.validateExperience(experience);
     }
 }
@@ -0,0 +1,109 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.exceptions.InvalidRequestException;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Field checks and level math for players. Holds nothing but constants, so it needs no
+ * collaborators and does not allocate.
+ */
+@Component
+public class PlayerValidator {
+    private final static int NAME_MAX_LENGTH = 12;
+    private final static int TITLE_MAX_LENGTH = 30;
+    private final static int EXPERIENCE_MIN_VALUE = Player.MIN_EXPERIENCE;
+    private final static int EXPERIENCE_MAX_VALUE = Player.MAX_EXPERIENCE;
+    private final static long DATE_MIN_VALUE = 2000L;
+    private final static long DATE_MAX_VALUE = 3000L;
+    private final static long BIRTHDAY_MIN_MILLIS = startOfYear(DATE_MIN_VALUE);
+    private final static long BIRTHDAY_MAX_MILLIS = startOfYear(DATE_MAX_VALUE + 1);
+    private final static int[] LEVEL_THRESHOLDS = levelThresholds(EXPERIENCE_MAX_VALUE);
+
+    public void validateId(Long id) {
+        if (id == null || id <= 0)
+            throw new InvalidRequestException("Invalid ID");
+    }
+
+    public void validateName(String name) {
+        if (name == null || name.isEmpty() || name.length() > NAME_MAX_LENGTH)
+            throw new InvalidRequestException("Invalid name");
+    }
+
+    public void validateTitle(String title) {
+        if (title == null || title.isEmpty() || title.length() > TITLE_MAX_LENGTH)
+            throw new InvalidRequestException("Invalid title");
+    }
+
+    public void validateRace(Race race) {
+        if (race == null)
+            throw new InvalidRequestException("Invalid race");
+    }
+
+    public void validateProfession(Profession profession) {
+        if (profession == null)
+            throw new InvalidRequestException("Invalid profession");
+    }
+
+    public void validateBirthday(Date birthday) {
+        if (birthday == null || birthday.getTime() < 0)
+            throw new InvalidRequestException("Invalid birthday");
+
+        if (birthday.getTime() < BIRTHDAY_MIN_MILLIS || birthday.getTime() >= BIRTHDAY_MAX_MILLIS)
+            throw new InvalidRequestException("Birthday is out of bounds");
+    }
+
+    public void validateExperience(Integer experience) {
+        if (experience == null
+                || experience < EXPERIENCE_MIN_VALUE
+                || experience > EXPERIENCE_MAX_VALUE)
+            throw new InvalidRequestException("Invalid Experience");
+    }
+
+    //an experience delta may take a player from one end of the range to the other, no further
+    public void validateExperienceDelta(Integer delta) {
+        if (delta == null || delta < -EXPERIENCE_MAX_VALUE || delta > EXPERIENCE_MAX_VALUE)
+            throw new InvalidRequestException("Invalid experience delta");
+    }
+
+    //level L starts at 50 * L * (L + 1) experience, the same as (sqrt(2500 + 200 * exp) - 50) / 100
+    public int currentLevelCalc(int exp) {
+        if (exp < 0 || exp > EXPERIENCE_MAX_VALUE) return (((int) Math.sqrt(2500 + 200 * exp)) - 50) / 100;
+
+        int index = Arrays.binarySearch(LEVEL_THRESHOLDS, exp);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    public int experienceToGetNextLevelCalc(int level, int exp) {
+        return 50 * (level + 1) * (level + 2) - exp;
+    }
+
+    public int clampExperience(long experience) {
+        return (int) Math.max(EXPERIENCE_MIN_VALUE, Math.min(EXPERIENCE_MAX_VALUE, experience));
+    }
+
+    private static int[] levelThresholds(int maxExperience) {
+        int levels = 0;
+        while (50L * levels * (levels + 1) <= maxExperience) levels++;
+
+        int[] thresholds = new int[levels];
+        for (int level = 0; level < levels; level++) {
+            thresholds[level] = 50 * level * (level + 1);
+        }
+        return thresholds;
+    }
+
+    //bounds are fixed in the default time zone at startup, as Calendar.getInstance() would use it
+    private static long startOfYear(long year) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(Calendar.YEAR, (int) year);
+        return calendar.getTimeInMillis();
+    }
+}
@@ -0,0 +1,95 @@
+package com.game.service;
+
+import com.game.metrics.MetricsSource;
+import com.game.repository.PlayerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What conditional GETs are answered from without reading the players. A single player is
+ * compared with its committed version, one primary key lookup of a single column, so writes from
+ * other nodes or straight to the database are seen at once.
+ * <p>
+ * Lists are compared with a counter of committed player writes and the time of the last one.
+ * Those writes are seen through {@link PlayersChangedEvent} and the tag differs from node to node,
+ * so like {@link PlayerQueryCache} list tags need one node writing the table, and are off unless
+ * {@code conditional.lists.enabled} is set as well.
+ */
+@Component
+public class PlayerVersions implements MetricsSource {
+    private final PlayerRepository playerRepository;
+    private final boolean enabled;
+    private final boolean listsEnabled;
+    //tags from before a restart never match
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong changes = new AtomicLong();
+    private volatile long lastChangeMillis = System.currentTimeMillis();
+    private final LongAdder lookups = new LongAdder();
+
+    @Autowired
+    public PlayerVersions(PlayerRepository playerRepository,
+                          @Value("${conditional.enabled:false}") boolean enabled,
+                          @Value("${conditional.lists.enabled:false}") boolean listsEnabled) {
+        this.playerRepository = playerRepository;
+        this.enabled = enabled;
+        this.listsEnabled = enabled && listsEnabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isListsEnabled() {
+        return listsEnabled;
+    }
+
+    //weak, the same tag stands for every format the list is negotiated in
+    public String listTag() {
+        return "W/\"" + epoch + "-" + changes.get() + "\"";
+    }
+
+    //-1 while the last change is less than a second old: Last-Modified has whole seconds, so a second
+    //change within the same second would go unnoticed by If-Modified-Since
+    public long lastModified() {
+        long changed = lastChangeMillis;
+        return System.currentTimeMillis() - changed >= 1000 ? changed : -1;
+    }
+
+    //the committed version of a player, null when disabled or there is no such player
+    public Long version(Long id) {
+        if (!enabled) return null;
+
+        lookups.increment();
+        return playerRepository.findVersion(id).orElse(null);
+    }
+
+    @TransactionalEventListener
+    public void onPlayersChanged(PlayersChangedEvent event) {
+        if (!listsEnabled) return;
+
+        changes.incrementAndGet();
+        lastChangeMillis = System.currentTimeMillis();
+    }
+
+    @Override
+    public String getName() {
+        return "player-versions";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", enabled);
+        snapshot.put("listsEnabled", listsEnabled);
+        snapshot.put("changes", changes.get());
+        snapshot.put("lookups", lookups.sum());
+        return snapshot;
+    }
+}
@@ -0,0 +1,48 @@
+package com.game.service;
+
+import com.game.entity.Player;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Published inside the transaction that writes players. Listeners that keep derived state
+ * (read models, caches) handle it once that transaction has committed.
+ */
+public class PlayersChangedEvent {
+    private final Collection<Player> saved;
+    private final Collection<Long> deletedIds;
+    private final Collection<Long> changedIds;
+
+    private PlayersChangedEvent(Collection<Player> saved, Collection<Long> deletedIds, Collection<Long> changedIds) {
+        this.saved = saved;
+        this.deletedIds = deletedIds;
+        this.changedIds = changedIds;
+    }
+
+    //rows whose new state is the given entity
+    public static PlayersChangedEvent saved(Collection<Player> players) {
+        return new PlayersChangedEvent(players, Collections.emptyList(), Collections.emptyList());
+    }
+
+    public static PlayersChangedEvent deleted(Collection<Long> ids) {
+        return new PlayersChangedEvent(Collections.emptyList(), ids, Collections.emptyList());
+    }
+
+    //rows changed in the database only; their new state has to be read back
+    public static PlayersChangedEvent changed(Collection<Long> ids) {
+        return new PlayersChangedEvent(Collections.emptyList(), Collections.emptyList(), ids);
+    }
+
+    public Collection<Player> getSaved() {
+        return saved;
+    }
+
+    public Collection<Long> getDeletedIds() {
+        return deletedIds;
+    }
+
+    public Collection<Long> getChangedIds() {
+        return changedIds;
+    }
+}
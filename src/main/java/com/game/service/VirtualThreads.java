@@ -0,0 +1,107 @@
+package com.game.service;
+
+import com.game.metrics.MetricsSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads for the executors that block on JDBC: virtual ones when {@code threads.virtual} is set
+ * and the runtime has them (Java 21+), daemon platform threads otherwise. The virtual thread API is
+ * reached through reflection, since the code is compiled for Java 8.
+ */
+@Component
+public class VirtualThreads implements MetricsSource {
+    private final boolean requested;
+    private final Method ofVirtual;
+    private final Method name;
+    private final Method factory;
+    private final Method newThreadPerTaskExecutor;
+    private final String unavailable;
+
+    @Autowired
+    public VirtualThreads(@Value("${threads.virtual:false}") boolean requested) {
+        this.requested = requested;
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        Method newThreadPerTaskExecutor = null;
+        String unavailable = null;
+        if (requested) {
+            try {
+                Class<?> builder = Class.forName("java.lang.Thread$Builder");
+                ofVirtual = Thread.class.getMethod("ofVirtual");
+                name = builder.getMethod("name", String.class, long.class);
+                factory = builder.getMethod("factory");
+                newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+                //a preview API on Java 19 and 20, which throws unless previews are enabled
+                ofVirtual.invoke(null);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                Throwable cause = e instanceof InvocationTargetException ? e.getCause() : e;
+                unavailable = cause.getClass().getSimpleName() + ": " + cause.getMessage();
+                ofVirtual = null;
+            }
+        }
+        this.ofVirtual = ofVirtual;
+        this.name = name;
+        this.factory = factory;
+        this.newThreadPerTaskExecutor = newThreadPerTaskExecutor;
+        this.unavailable = unavailable;
+    }
+
+    public boolean isActive() {
+        return ofVirtual != null;
+    }
+
+    //threads named prefix-1, prefix-2, ...
+    public ThreadFactory newFactory(String prefix) {
+        if (isActive()) {
+            try {
+                Object builder = name.invoke(ofVirtual.invoke(null), prefix + "-", 1L);
+                return (ThreadFactory) factory.invoke(builder);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot create virtual threads", e);
+            }
+        }
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    //a new thread for every task, which only makes sense for virtual threads
+    public ExecutorService newPerTaskExecutor(String prefix) {
+        if (!isActive()) throw new IllegalStateException("Virtual threads are not available");
+        try {
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, newFactory(prefix));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create virtual threads", e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "threads";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("virtualRequested", requested);
+        snapshot.put("virtual", isActive());
+        snapshot.put("javaVersion", System.getProperty("java.version"));
+        if (unavailable != null) snapshot.put("unavailable", unavailable);
+        return snapshot;
+    }
+}
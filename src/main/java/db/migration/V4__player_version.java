@@ -0,0 +1,36 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+
+/**
+ * Optimistic lock of Player, exposed as the ETag of /rest/players/{id}. Every write to a player
+ * row increments it, including the plain JDBC ones.
+ * <p>
+ * A Java migration because the dev profile's schema script already creates the column and MySQL
+ * has no ADD COLUMN IF NOT EXISTS.
+ */
+public class V4__player_version extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            if (hasVersionColumn(statement)) return;
+            statement.execute("ALTER TABLE player ADD COLUMN version BIGINT(20) NOT NULL DEFAULT 0");
+        }
+    }
+
+    private static boolean hasVersionColumn(Statement statement) throws Exception {
+        try (ResultSet resultSet = statement.executeQuery("SELECT * FROM player WHERE 1 = 0")) {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                if ("version".equalsIgnoreCase(metaData.getColumnLabel(i))) return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+-- Indexes for the filter and sort combinations produced by PlayerController.
+-- InnoDB appends the primary key to every secondary index, so each of them also
+-- serves the id tiebreaker of ORDER BY <field>, id and of keyset pages.
+
+-- sort orders: NAME, EXPERIENCE, BIRTHDAY, LEVEL (ID uses the primary key)
+CREATE INDEX idx_player_name ON player (name);
+CREATE INDEX idx_player_experience ON player (experience);
+CREATE INDEX idx_player_birthday ON player (birthday);
+CREATE INDEX idx_player_level ON player (level);
+
+-- equality filters first, then the range filter the UI pairs with them most
+CREATE INDEX idx_player_race_banned_level ON player (race, banned, level);
+CREATE INDEX idx_player_profession_banned_level ON player (profession, banned, level);
+CREATE INDEX idx_player_race_profession_banned ON player (race, profession, banned);
+
+-- covers /count for banned + level/experience/birthday ranges without touching the rows
+CREATE INDEX idx_player_banned_level_experience_birthday ON player (banned, level, experience, birthday);
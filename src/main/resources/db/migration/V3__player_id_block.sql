@@ -0,0 +1,13 @@
+-- Id blocks reserved by the application nodes, see IdBlockAllocator.
+-- Allocation starts after the ids already in use.
+CREATE TABLE IF NOT EXISTS player_id_block
+(
+    name    VARCHAR(64) NOT NULL,
+    next_id BIGINT(20)  NOT NULL,
+    PRIMARY KEY (name)
+);
+
+INSERT INTO player_id_block (name, next_id)
+SELECT 'player', ids.next_id
+FROM (SELECT COALESCE(MAX(id), 0) + 1 AS next_id FROM player) ids
+WHERE NOT EXISTS(SELECT 1 FROM player_id_block WHERE name = 'player');
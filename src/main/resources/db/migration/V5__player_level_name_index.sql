@@ -0,0 +1,4 @@
+-- Covers the leaderboard, GET /rest/players?order=LEVEL&fields=id,name,level, without reading the
+-- rows: InnoDB appends id to the entry. Replaces idx_player_level, which is its prefix.
+CREATE INDEX idx_player_level_name ON player (level, name);
+DROP INDEX idx_player_level ON player;
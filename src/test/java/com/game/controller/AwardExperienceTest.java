@@ -0,0 +1,122 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class AwardExperienceTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void awardExperienceTest() throws Exception {
+        PlayerInfoTest expected = testsHelper.getPlayerInfosById(5);
+        int experience = expected.experience + 1500;
+        int level = (((int) Math.sqrt(2500 + 200 * experience)) - 50) / 100;
+
+        JsonNode progress = award(5, "{\"delta\":1500}");
+        assertEquals("Опыт должен увеличиться на дельту.", experience, progress.get("experience").asInt());
+        assertEquals("Уровень должен пересчитываться при начислении опыта.", level, progress.get("level").asInt());
+        assertEquals("Остаток до следующего уровня должен пересчитываться при начислении опыта.",
+                50 * (level + 1) * (level + 2) - experience, progress.get("untilNextLevel").asInt());
+
+        PlayerInfoTest actual = player(5);
+        assertEquals("Новый опыт должен сохраняться.", experience, actual.experience);
+        assertEquals("Новый уровень должен сохраняться.", level, actual.level);
+        assertEquals("Новый остаток до следующего уровня должен сохраняться.",
+                50 * (level + 1) * (level + 2) - experience, actual.untilNextLevel);
+    }
+
+    //test2
+    @Test
+    public void awardExperienceIsClampedTest() throws Exception {
+        JsonNode progress = award(5, "{\"delta\":10000000}");
+        assertEquals("Опыт не должен превышать максимум.", 10000000, progress.get("experience").asInt());
+        assertEquals("Не правильный уровень при максимальном опыте.", 446, progress.get("level").asInt());
+
+        progress = award(5, "{\"delta\":-10000000}");
+        assertEquals("Опыт не должен становиться отрицательным.", 0, progress.get("experience").asInt());
+        assertEquals("Не правильный уровень при нулевом опыте.", 0, progress.get("level").asInt());
+        assertEquals("Не правильный остаток до следующего уровня при нулевом опыте.", 100, progress.get("untilNextLevel").asInt());
+    }
+
+    //test3
+    @Test
+    public void concurrentAwardsAreNotLostTest() throws Exception {
+        int before = testsHelper.getPlayerInfosById(7).experience;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<JsonNode>> awards = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                awards.add(executor.submit(() -> award(7, "{\"delta\":1}")));
+            }
+            for (Future<JsonNode> award : awards) {
+                award.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals("Одновременные начисления опыта не должны теряться.", before + 200, player(7).experience);
+    }
+
+    //test4
+    @Test
+    public void awardExperienceNotExistTest() throws Exception {
+        mockMvc.perform(post("/rest/players/426/experience")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\":10}"))
+                .andExpect(status().isNotFound());
+    }
+
+    //test5
+    @Test
+    public void awardExperienceInvalidTest() throws Exception {
+        mockMvc.perform(post("/rest/players/0/experience")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\":10}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/rest/players/5/experience")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/rest/players/5/experience")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\":10000001}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode award(long id, String body) throws Exception {
+        String contentAsString = mockMvc.perform(post("/rest/players/" + id + "/experience")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(contentAsString);
+    }
+
+    private PlayerInfoTest player(long id) throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players/" + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(contentAsString, PlayerInfoTest.class);
+    }
+}
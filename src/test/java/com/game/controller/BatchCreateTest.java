@@ -0,0 +1,59 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BatchCreateTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void createPlayersReportsEachItem() throws Exception {
+        String body = "[" + TestsHelper.BANNED_TRUE_JSON + "," + TestsHelper.NEGATIVE_BIRTHDAY_JSON + ","
+                + TestsHelper.TOO_BIG_EXPERIENCE_JSON + "," + TestsHelper.BANNED_TRUE_JSON + "]";
+
+        String contentAsString = mockMvc.perform(post("/rest/players/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode result = mapper.readTree(contentAsString);
+
+        assertEquals("Не правильное количество созданных игроков.", 2, result.get("created").asInt());
+        assertEquals("Не правильное количество отклоненных игроков.", 2, result.get("failed").asInt());
+
+        JsonNode items = result.get("items");
+        assertEquals("Созданный игрок должен получить id.", 41L, items.get(0).get("id").asLong());
+        assertTrue("Игрок с не правильными данными должен быть отклонен с ошибкой.", items.get(1).get("error").isTextual());
+        assertTrue("Игрок со слишком большим опытом должен быть отклонен.", items.get(2).get("id").isNull());
+        assertEquals("Созданный игрок должен получить id.", 42L, items.get(3).get("id").asLong());
+
+        String player = mockMvc.perform(get("/rest/players/42"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        PlayerInfoTest actual = mapper.readValue(player, PlayerInfoTest.class);
+        assertEquals("Не правильное имя созданного игрока.", "Амарылис", actual.name);
+        assertEquals("Не правильный уровень созданного игрока.", 35, actual.level);
+        assertEquals("Не правильный остаток до следующего уровня созданного игрока.", 2614, actual.untilNextLevel);
+    }
+
+    //test2
+    @Test
+    public void createPlayersWithoutArrayTest() throws Exception {
+        mockMvc.perform(post("/rest/players/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.BANNED_TRUE_JSON))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,152 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.game.config.PlayerRowsHttpMessageConverter;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BinaryFormatsTest extends AbstractTest {
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+    private final PlayerRowsHttpMessageConverter rowsConverter = new PlayerRowsHttpMessageConverter();
+
+    //test1
+    @Test
+    public void getPlayersAsCborTest() throws Exception {
+        byte[] cbor = players(CBOR, "/rest/players?pageSize=20");
+        PlayerInfoTest[] actual = cborMapper.readValue(cbor, PlayerInfoTest[].class);
+        PlayerInfoTest[] expected = mapper.readValue(players(MediaType.APPLICATION_JSON, "/rest/players?pageSize=20"),
+                PlayerInfoTest[].class);
+
+        assertEquals("CBOR должен содержать тех же игроков, что и JSON.", Arrays.asList(expected), Arrays.asList(actual));
+    }
+
+    //test2
+    @Test
+    public void getPlayersAsRowsTest() throws Exception {
+        byte[] rows = players(PlayerRowsHttpMessageConverter.PLAYER_ROWS, "/rest/players?pageSize=20");
+        List<Player> actual = readRows(rows);
+        PlayerInfoTest[] expected = mapper.readValue(players(MediaType.APPLICATION_JSON, "/rest/players?pageSize=20"),
+                PlayerInfoTest[].class);
+
+        assertEquals("Не правильное количество игроков в строковом формате.", expected.length, actual.size());
+        for (int i = 0; i < expected.length; i++) {
+            Player player = actual.get(i);
+            PlayerInfoTest info = new PlayerInfoTest(player.getId(), player.getName(), player.getTitle(), player.getRace(),
+                    player.getProfession(), player.getBirthday().getTime(), player.isBanned(), player.getExperience(),
+                    player.getLevel(), player.getUntilNextLevel());
+            assertEquals("Строковый формат должен содержать тех же игроков, что и JSON.", expected[i], info);
+        }
+    }
+
+    //test3
+    @Test
+    public void getPageAsRowsTest() throws Exception {
+        byte[] rows = players(PlayerRowsHttpMessageConverter.PLAYER_ROWS, "/rest/players/page?race=ELF&pageSize=2");
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(rows));
+
+        assertEquals("Не правильная версия строкового формата.", 2, in.readUnsignedByte());
+        assertEquals("Не правильное общее количество игроков.", 10L, in.readLong());
+        assertEquals("Не правильный номер страницы.", 0, in.readInt());
+        assertEquals("Не правильный размер страницы.", 2, in.readInt());
+        assertEquals("Не правильное количество игроков на странице.", 2, in.readInt());
+    }
+
+    //test4
+    @Test
+    public void createPlayerFromRowsTest() throws Exception {
+        Player player = new Player(null, "Бинарный", "Строка", Race.DWARF, Profession.CLERIC, 63986, 0, 0,
+                new Date(988059600000L), false);
+        MockHttpOutputMessage body = new MockHttpOutputMessage();
+        rowsConverter.write(player, PlayerRowsHttpMessageConverter.PLAYER_ROWS, body);
+
+        byte[] created = mockMvc.perform(post("/rest/players")
+                .contentType(PlayerRowsHttpMessageConverter.PLAYER_ROWS)
+                .accept(PlayerRowsHttpMessageConverter.PLAYER_ROWS)
+                .content(body.getBodyAsBytes()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        Player actual = (Player) rowsConverter.read(Player.class, null, new MockHttpInputMessage(created));
+
+        assertEquals("Не правильное имя созданного игрока.", "Бинарный", actual.getName());
+        assertEquals("Не правильная раса созданного игрока.", Race.DWARF, actual.getRace());
+        assertEquals("Не правильный уровень созданного игрока.", 35, actual.getLevel());
+        assertTrue("Созданный игрок должен получить id.", actual.getId() != null);
+    }
+
+    //test5
+    @Test
+    public void binaryFormatsAreSmallerTest() throws Exception {
+        int json = players(MediaType.APPLICATION_JSON, "/rest/players?pageSize=40").length;
+        int cbor = players(CBOR, "/rest/players?pageSize=40").length;
+        int rows = players(PlayerRowsHttpMessageConverter.PLAYER_ROWS, "/rest/players?pageSize=40").length;
+
+        assertTrue("CBOR должен быть компактнее JSON.", cbor < json);
+        assertTrue("Строковый формат должен быть компактнее CBOR.", rows < cbor);
+    }
+
+    //test6
+    @Test
+    public void unsupportedFormatTest() throws Exception {
+        mockMvc.perform(get("/rest/players/count").accept(PlayerRowsHttpMessageConverter.PLAYER_ROWS))
+                .andExpect(status().isNotAcceptable());
+
+        mockMvc.perform(post("/rest/players")
+                .contentType(PlayerRowsHttpMessageConverter.PLAYER_ROWS)
+                .content(new byte[]{1}))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test7
+    @Test
+    public void rowWithoutLevelTest() throws Exception {
+        Player player = new Player(7L, "Без уровня", "Строка", Race.ELF, Profession.ROGUE, null, null, null,
+                new Date(988059600000L), true);
+        MockHttpOutputMessage body = new MockHttpOutputMessage();
+        rowsConverter.write(player, PlayerRowsHttpMessageConverter.PLAYER_ROWS, body);
+        Player actual = (Player) rowsConverter.read(Player.class, null, new MockHttpInputMessage(body.getBodyAsBytes()));
+
+        assertEquals("Не правильное имя игрока без уровня.", "Без уровня", actual.getName());
+        assertEquals("Опыт игрока должен остаться пустым.", null, actual.getExperience());
+        assertEquals("Уровень игрока должен остаться пустым.", null, actual.getLevel());
+        assertEquals("Остаток до следующего уровня должен остаться пустым.", null, actual.getUntilNextLevel());
+        assertEquals("Не правильный бан игрока без уровня.", true, actual.isBanned());
+    }
+
+    private byte[] players(MediaType mediaType, String url) throws Exception {
+        return mockMvc.perform(get(url).accept(mediaType))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(mediaType))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Player> readRows(byte[] rows) throws Exception {
+        return (List<Player>) rowsConverter.read(new ParameterizedTypeReference<List<Player>>() {
+        }.getType(), null, new MockHttpInputMessage(rows));
+    }
+}
@@ -0,0 +1,124 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "bulk.chunkSize=2")
+public class BulkUpdateTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void banPlayersByFilterTest() throws Exception {
+        long elves = testsHelper.getPlayerInfosByRace(Race.ELF, testsHelper.getAllPlayers()).size();
+
+        assertEquals("Возвращается не правильное количество обновленных игроков.",
+                elves, bulkUpdate("?race=ELF", "{\"banned\":true}"));
+        assertEquals("После массового обновления все подходящие игроки должны быть забанены.",
+                0L, count("?race=ELF&banned=false"));
+    }
+
+    //test2
+    @Test
+    public void experienceDeltaRecalculatesLevelTest() throws Exception {
+        List<PlayerInfoTest> orcs = testsHelper.getPlayerInfosByRace(Race.ORC, testsHelper.getAllPlayers());
+
+        assertEquals("Возвращается не правильное количество обновленных игроков.",
+                (long) orcs.size(), bulkUpdate("?race=ORC", "{\"experienceDelta\":1000}"));
+
+        for (PlayerInfoTest orc : orcs) {
+            PlayerInfoTest actual = player(orc.id);
+            int experience = orc.experience + 1000;
+            int level = (((int) Math.sqrt(2500 + 200 * experience)) - 50) / 100;
+
+            assertEquals("Опыт должен увеличиться на дельту.", experience, actual.experience);
+            assertEquals("Уровень должен пересчитываться при массовом обновлении.", level, actual.level);
+            assertEquals("Остаток до следующего уровня должен пересчитываться при массовом обновлении.",
+                    50 * (level + 1) * (level + 2) - experience, actual.untilNextLevel);
+        }
+    }
+
+    //test3
+    @Test
+    public void experienceDeltaIsClampedTest() throws Exception {
+        PlayerInfoTest expected = testsHelper.getPlayerInfosById(3);
+        bulkUpdate("?name=" + expected.name, "{\"experienceDelta\":-100000000}");
+
+        PlayerInfoTest actual = player(3);
+        assertEquals("Опыт не должен становиться отрицательным.", 0, actual.experience);
+        assertEquals("Уровень должен пересчитываться при массовом обновлении.", 0, actual.level);
+        assertEquals("Остаток до следующего уровня должен пересчитываться при массовом обновлении.", 100, actual.untilNextLevel);
+    }
+
+    //test4
+    @Test
+    public void deletePlayersByFilterTest() throws Exception {
+        List<PlayerInfoTest> all = testsHelper.getAllPlayers();
+        long hobbits = testsHelper.getPlayerInfosByRace(Race.HOBBIT, all).size();
+
+        String contentAsString = mockMvc.perform(delete("/rest/players/bulk?race=HOBBIT"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("Возвращается не правильное количество удаленных игроков.", hobbits, Long.parseLong(contentAsString));
+        assertEquals("После массового удаления не должно остаться подходящих игроков.", 0L, count("?race=HOBBIT"));
+        assertEquals("Массовое удаление не должно затрагивать других игроков.", all.size() - hobbits, count(""));
+    }
+
+    //test5
+    @Test
+    public void deletePlayersWithoutFilterTest() throws Exception {
+        mockMvc.perform(delete("/rest/players/bulk"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test6
+    @Test
+    public void updatePlayersEmptyPatchTest() throws Exception {
+        mockMvc.perform(post("/rest/players/bulk?race=ELF")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private long bulkUpdate(String query, String patch) throws Exception {
+        String contentAsString = mockMvc.perform(post("/rest/players/bulk" + query)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(patch))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Long.parseLong(contentAsString);
+    }
+
+    private long count(String query) throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players/count" + query))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Long.parseLong(contentAsString);
+    }
+
+    private PlayerInfoTest player(long id) throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players/" + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(contentAsString, PlayerInfoTest.class);
+    }
+}
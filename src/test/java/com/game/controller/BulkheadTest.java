@@ -0,0 +1,156 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.service.Bulkheads;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {"bulkhead.enabled=true", "bulkhead.reads.threads=1", "bulkhead.reads.maxQueued=0",
+        "conditional.enabled=true"})
+public class BulkheadTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void asyncReadTest() throws Exception {
+        MvcResult result = mockMvc.perform(get("/rest/players/count"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        result = mockMvc.perform(get("/rest/players/9"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String player = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Должен вернуться запрошенный игрок.", 9, mapper.readTree(player).get("id").asInt());
+    }
+
+    //test2
+    @Test
+    public void asyncWriteTest() throws Exception {
+        MvcResult result = mockMvc.perform(post("/rest/players/10")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Первый\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        result = mockMvc.perform(get("/rest/players/10"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String player = mockMvc.perform(asyncDispatch(result))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Изменение должно сохраниться.", "Первый", mapper.readTree(player).get("name").asText());
+    }
+
+    //test3
+    @Test
+    public void notFoundTest() throws Exception {
+        MvcResult result = mockMvc.perform(get("/rest/players/100500"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+
+    //test4
+    @Test
+    public void saturatedReadsTest() throws Exception {
+        Bulkheads bulkheads = context.getBean(Bulkheads.class);
+        long rejectedBefore = metrics().get("reads").get("rejected").asLong();
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> blocker = bulkheads.submit(Bulkheads.Kind.READS, () -> {
+            started.countDown();
+            release.await();
+            return true;
+        });
+        try {
+            started.await();
+            mockMvc.perform(get("/rest/players/count"))
+                    .andExpect(request().asyncNotStarted())
+                    .andExpect(status().isServiceUnavailable());
+
+            //writes have threads of their own
+            MvcResult result = mockMvc.perform(post("/rest/players/11")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"name\":\"Второй\"}"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk());
+        } finally {
+            release.countDown();
+        }
+        blocker.get();
+
+        JsonNode reads = metrics().get("reads");
+        assertEquals("Отклонённые чтения должны учитываться.", rejectedBefore + 1, reads.get("rejected").asLong());
+        assertEquals("Очередь чтений должна быть ограничена.", 0, reads.get("maxQueued").asInt());
+        assertTrue("Время ожидания в очереди должно учитываться.", reads.get("waitTime").get("count").asLong() > 0);
+        assertTrue("Записи должны выполняться.", metrics().get("writes").get("waitTime").get("count").asLong() > 0);
+    }
+
+    //test5
+    @Test
+    public void asyncRevalidationTest() throws Exception {
+        MvcResult result = mockMvc.perform(get("/rest/players/9").header("If-None-Match", "\"0\""))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"0\""));
+    }
+
+    //test6
+    @Test
+    public void saturatedRevalidationTest() throws Exception {
+        Bulkheads bulkheads = context.getBean(Bulkheads.class);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> blocker = bulkheads.submit(Bulkheads.Kind.READS, () -> {
+            started.countDown();
+            release.await();
+            return true;
+        });
+        try {
+            started.await();
+            //the version is looked up on the bulkhead as well, not on the request thread
+            mockMvc.perform(get("/rest/players/9").header("If-None-Match", "\"0\""))
+                    .andExpect(request().asyncNotStarted())
+                    .andExpect(status().isServiceUnavailable());
+        } finally {
+            release.countDown();
+        }
+        blocker.get();
+    }
+
+    private JsonNode metrics() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/metrics/bulkheads"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(contentAsString);
+    }
+}
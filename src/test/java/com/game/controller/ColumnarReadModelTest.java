@@ -0,0 +1,278 @@
+package com.game.controller;
+
+import com.game.controller.utils.TestsHelper;
+import com.game.dto.PlayerPage;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.readmodel.ColumnarReadModel;
+import com.game.repository.PlayerRepository;
+import com.game.service.PlayerFilter;
+import com.game.service.PlayerService;
+import com.game.service.PlayerServiceImpl;
+import com.game.service.PlayersChangedEvent;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.MediaType;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.util.AssertionErrors.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "readmodel.columnar.enabled=true")
+public class ColumnarReadModelTest extends AbstractTest {
+
+    private static final String[] ORDERS = {"id", "name", "experience", "birthday", "level"};
+    //birthdays of players in test.sql, to hit the inclusive ends of the range
+    private static final long AFTER = new GregorianCalendar(2006, 0, 7).getTimeInMillis();
+    private static final long BEFORE = new GregorianCalendar(2009, 8, 8).getTimeInMillis();
+
+    private ColumnarReadModel readModel;
+    private PlayerRepository playerRepository;
+    private PlayerServiceImpl playerService;
+    private ColumnarReadModel separateModel;
+
+    @Override
+    public void setup() {
+        super.setup();
+        readModel = context.getBean(ColumnarReadModel.class);
+        playerRepository = context.getBean(PlayerRepository.class);
+        playerService = AopTestUtils.getTargetObject(context.getBean(PlayerService.class));
+        //test.sql has just recreated the table without the model seeing it
+        readModel.load();
+    }
+
+    //test1
+    @Test
+    public void filtersMatchJpaTest() {
+        assertMatchesJpa(filters(3));
+    }
+
+    //test2
+    @Test
+    public void nullColumnsMatchJpaTest() {
+        JdbcTemplate jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+        jdbc.update("INSERT INTO player(name, title, race, profession, birthday, banned, experience, level, untilNextLevel) "
+                + "VALUES (NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL)");
+        jdbc.update("INSERT INTO player(name, title, race, profession, birthday, banned, experience, level, untilNextLevel) "
+                + "VALUES ('Безуровня', 'Без даты', 'ELF', 'ROGUE', NULL, false, 60000, NULL, NULL)");
+        jdbc.update("INSERT INTO player(name, title, race, profession, birthday, banned, experience, level, untilNextLevel) "
+                + "VALUES ('Безопыта', NULL, 'ELF', NULL, '2007-03-01', true, NULL, 40, 100)");
+        readModel.load();
+
+        assertMatchesJpa(filters(3));
+    }
+
+    //test3
+    @Test
+    public void writesMatchJpaTest() throws Exception {
+        mockMvc.perform(post("/rest/players")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/rest/players/3")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Обновлан\",\"race\":\"ELF\",\"experience\":120000}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/rest/players/bulk?race=ELF")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"experienceDelta\":1000}"))
+                .andExpect(status().isOk());
+        assertMatchesJpa(filters(1));
+
+        mockMvc.perform(delete("/rest/players/6"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/rest/players?ids=8,9,415"))
+                .andExpect(status().isOk());
+        assertMatchesJpa(filters(1));
+    }
+
+    //test4
+    @Test
+    public void reloadAfterDeleteTest() throws Exception {
+        JdbcTemplate jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+        jdbc.update("UPDATE player SET name = 'Устаревший', version = version + 1 WHERE id = 6");
+
+        //the update's reload has read the row when the delete commits and its listener runs
+        assertReloadOverlaps(6L, () -> {
+            jdbc.update("DELETE FROM player WHERE id = 6");
+            return PlayersChangedEvent.deleted(Collections.singletonList(6L));
+        });
+
+        PlayerFilter filter = new PlayerFilter();
+        filter.setName("Устаревший");
+        assertEquals("Перечитанный после удаления игрок не должен возвращаться.", 0L, separateModel.count(filter));
+        assertEquals("Количество игроков должно совпадать с JPA.", playerRepository.count(), separateModel.count(new PlayerFilter()));
+    }
+
+    //test5
+    @Test
+    public void reloadAfterNewerUpdateTest() throws Exception {
+        JdbcTemplate jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+        jdbc.update("UPDATE player SET name = 'Старое', version = version + 1 WHERE id = 7");
+
+        //a later update of the same player reloads and applies first
+        assertReloadOverlaps(7L, () -> {
+            jdbc.update("UPDATE player SET name = 'Новое', version = version + 1 WHERE id = 7");
+            return PlayersChangedEvent.changed(Collections.singletonList(7L));
+        });
+
+        PlayerFilter filter = new PlayerFilter();
+        filter.setName("Новое");
+        assertEquals("Старое состояние игрока не должно перезаписывать новое.", 1L, separateModel.count(filter));
+        filter.setName("Старое");
+        assertEquals("Старое состояние игрока не должно перезаписывать новое.", 0L, separateModel.count(filter));
+    }
+
+    //test6
+    @Test
+    public void refusedInProdTest() {
+        MockEnvironment prod = new MockEnvironment();
+        prod.setActiveProfiles("prod");
+        try {
+            new ColumnarReadModel(true, playerRepository, context.getBean(PlatformTransactionManager.class), prod);
+            fail("Модель не должна включаться с профилем prod.");
+        } catch (IllegalStateException e) {
+            //expected
+        }
+    }
+
+    //a model of its own whose first reload of the player waits, after reading it, until the other change is applied
+    private void assertReloadOverlaps(Long id, Callable<PlayersChangedEvent> otherChange) throws Exception {
+        CountDownLatch read = new CountDownLatch(1);
+        CountDownLatch applied = new CountDownLatch(1);
+        AtomicBoolean first = new AtomicBoolean(true);
+        PlayerRepository waiting = (PlayerRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{PlayerRepository.class}, (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(playerRepository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (method.getName().equals("findAllById") && first.getAndSet(false)) {
+                        read.countDown();
+                        applied.await(10, TimeUnit.SECONDS);
+                    }
+                    return result;
+                });
+        separateModel = new ColumnarReadModel(true, waiting, context.getBean(PlatformTransactionManager.class),
+                context.getEnvironment());
+        separateModel.load();
+
+        ExecutorService reloader = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> reload = reloader.submit(() -> separateModel.onPlayersChanged(PlayersChangedEvent.changed(Collections.singletonList(id))));
+            assertTrue("Перечитывание игрока должно начаться.", read.await(10, TimeUnit.SECONDS));
+            separateModel.onPlayersChanged(otherChange.call());
+            applied.countDown();
+            reload.get(10, TimeUnit.SECONDS);
+        } finally {
+            applied.countDown();
+            reloader.shutdownNow();
+        }
+    }
+
+    @After
+    public void closeSeparateModel() {
+        if (separateModel != null) separateModel.destroy();
+    }
+
+    //each combination of filterBy* on or off, the ranges bounded on both sides, from below and from above
+    private static List<PlayerFilter> filters(int variants) {
+        List<PlayerFilter> filters = new ArrayList<>();
+        for (int mask = 0; mask < 1 << 8; mask++) {
+            for (int variant = 0; variant < variants; variant++) {
+                boolean min = variant != 2;
+                boolean max = variant != 1;
+                PlayerFilter filter = new PlayerFilter();
+                if ((mask & 1) != 0) filter.setName("ан");
+                if ((mask & 2) != 0) filter.setTitle(" ");
+                if ((mask & 4) != 0) filter.setRace(Race.ELF);
+                if ((mask & 8) != 0) filter.setProfession(Profession.ROGUE);
+                if ((mask & 16) != 0) {
+                    if (min) filter.setMinExperience(50000);
+                    if (max) filter.setMaxExperience(150000);
+                }
+                if ((mask & 32) != 0) {
+                    if (min) filter.setMinLevel(30);
+                    if (max) filter.setMaxLevel(50);
+                }
+                if ((mask & 64) != 0) {
+                    if (min) filter.setAfter(AFTER);
+                    if (max) filter.setBefore(BEFORE);
+                }
+                if ((mask & 128) != 0) filter.setBanned(variant == 1);
+                filters.add(filter);
+            }
+        }
+        return filters;
+    }
+
+    private void assertMatchesJpa(List<PlayerFilter> filters) {
+        for (int i = 0; i < filters.size(); i++) {
+            PlayerFilter filter = filters.get(i);
+            Specification<Player> specification = playerService.filterBy(filter);
+            Pageable pageable = PageRequest.of((i / ORDERS.length) % 2, 5,
+                    Sort.by((i / 2) % 2 == 0 ? Sort.Direction.ASC : Sort.Direction.DESC, ORDERS[i % ORDERS.length])
+                            .and(Sort.by("id")));
+            String query = filter.canonicalKey() + " " + pageable;
+
+            assertEquals("Количество игроков должно совпадать с JPA: " + query,
+                    playerRepository.countMatching(specification), readModel.count(filter));
+
+            //pages and slices take turns, each order comes up with both
+            if (i % 2 == 0) {
+                PlayerPage expected = playerRepository.findPage(specification, pageable);
+                PlayerPage actual = readModel.page(filter, pageable);
+                assertEquals("Всего игроков на странице должно совпадать с JPA: " + query,
+                        expected.getTotal(), actual.getTotal());
+                assertEquals("Страница должна совпадать с JPA: " + query,
+                        describe(expected.getContent()), describe(actual.getContent()));
+            } else {
+                assertEquals("Срез должен совпадать с JPA: " + query,
+                        describe(playerRepository.findSlice(specification, pageable).getContent()),
+                        describe(readModel.slice(filter, pageable).getContent()));
+            }
+        }
+        assertTrue("Фильтры должны находить игроков.", readModel.count(new PlayerFilter()) > 0);
+    }
+
+    private static List<String> describe(List<Player> players) {
+        List<String> result = new ArrayList<>();
+        for (Player player : players) {
+            result.add(player.getId() + "|" + player.getName() + "|" + player.getTitle() + "|" + player.getRace()
+                    + "|" + player.getProfession() + "|" + (player.getBirthday() == null ? null : player.getBirthday().getTime())
+                    + "|" + player.isBanned() + "|" + player.getExperience() + "|" + player.getLevel()
+                    + "|" + player.getUntilNextLevel() + "|" + player.getVersion());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,284 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.luben.zstd.ZstdInputStream;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.Filter;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.util.AssertionErrors.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {"compression.enabled=true", "conditional.enabled=true", "conditional.lists.enabled=true"})
+public class CompressionTest extends AbstractTest {
+
+    private static final String PAGE = "/rest/players?pageSize=40";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Override
+    public void setup() {
+        mockMvc = MockMvcBuilders
+                .webAppContextSetup(context)
+                .addFilter(context.getBean("responseCompressionFilter", Filter.class))
+                .addFilter(((request, response, chain) -> {
+                    response.setCharacterEncoding("UTF-8");
+                    chain.doFilter(request, response);
+                }))
+                .build();
+    }
+
+    //test1
+    @Test
+    public void gzipPageTest() throws Exception {
+        String expected = mockMvc.perform(get(PAGE))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andReturn().getResponse().getContentAsString();
+
+        MockHttpServletResponse response = mockMvc.perform(get(PAGE).header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andReturn().getResponse();
+        assertTrue("Сжатый ответ должен быть меньше исходного.",
+                response.getContentAsByteArray().length < expected.getBytes(StandardCharsets.UTF_8).length);
+        assertEquals("Распакованный ответ должен совпадать с несжатым.",
+                expected, decode(new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))));
+    }
+
+    //test2
+    @Test
+    public void zstdPreferredTest() throws Exception {
+        String expected = mockMvc.perform(get(PAGE))
+                .andReturn().getResponse().getContentAsString();
+
+        MockHttpServletResponse response = mockMvc.perform(get(PAGE).header("Accept-Encoding", "gzip, deflate, br, zstd"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "zstd"))
+                .andReturn().getResponse();
+        assertEquals("Распакованный ответ должен совпадать с несжатым.",
+                expected, decode(new ZstdInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))));
+
+        mockMvc.perform(get(PAGE).header("Accept-Encoding", "zstd;q=0, gzip;q=0.5"))
+                .andExpect(header().string("Content-Encoding", "gzip"));
+        mockMvc.perform(get(PAGE).header("Accept-Encoding", "identity"))
+                .andExpect(header().doesNotExist("Content-Encoding"));
+    }
+
+    //test3
+    @Test
+    public void smallResponseNotCompressedTest() throws Exception {
+        long belowBefore = metrics().get("belowMinSize").asLong();
+
+        MockHttpServletResponse response = mockMvc.perform(get("/rest/players/count").header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andReturn().getResponse();
+        assertEquals("Короткий ответ должен отправляться с точной длиной.",
+                response.getContentAsByteArray().length, response.getContentLength());
+        assertEquals("Короткий ответ не должен сжиматься.", belowBefore + 1, metrics().get("belowMinSize").asLong());
+    }
+
+    //test4
+    @Test
+    public void compressedExportTest() throws Exception {
+        String expected = export(null).getContentAsString();
+
+        MockHttpServletResponse response = export("gzip");
+        assertEquals("Экспорт должен сжиматься.", "gzip", response.getHeader("Content-Encoding"));
+        assertEquals("Распакованный экспорт должен совпадать с несжатым.",
+                expected, decode(new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))));
+    }
+
+    //test5
+    @Test
+    public void compressedETagTest() throws Exception {
+        String tag = mockMvc.perform(get(PAGE).header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertTrue("ETag сжатого ответа должен содержать кодировку.", tag.endsWith("--gzip\""));
+
+        mockMvc.perform(get(PAGE).header("Accept-Encoding", "gzip").header("If-None-Match", tag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", tag));
+
+        mockMvc.perform(post("/rest/players/4")
+                .header("If-Match", "\"0--gzip\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Первый\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+    }
+
+    //test6
+    @Test
+    public void compressionMetricsTest() throws Exception {
+        mockMvc.perform(get(PAGE).header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk());
+
+        JsonNode gzip = metrics().get("gzip");
+        assertTrue("Сжатые ответы должны учитываться.", gzip.get("responses").asLong() > 0);
+        assertTrue("Степень сжатия должна быть больше 1.", gzip.get("ratio").asDouble() > 1);
+        assertTrue("Сжатие должно переиспользовать кодировщики.",
+                gzip.get("encodersCreated").asLong() <= gzip.get("responses").asLong());
+    }
+
+    //test7
+    @Test
+    public void nonBlockingWriteTest() throws Exception {
+        byte[] body = body(4096);
+        List<WriteListener> listeners = new ArrayList<>();
+        WriteListener listener = new WriteListener() {
+            @Override
+            public void onWritePossible() {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+        };
+        long nonBlocking = metrics().get("nonBlocking").asLong();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        compressionFilter().doFilter(gzipRequest(), new NonBlockingResponse(response, listeners), (req, res) -> {
+            res.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            ServletOutputStream out = res.getOutputStream();
+            out.write(body, 0, 10);
+            out.setWriteListener(listener);
+            out.write(body, 10, body.length - 10);
+        });
+
+        assertEquals("Неблокирующая запись должна передаваться без сжатия.", null, response.getHeader("Content-Encoding"));
+        assertTrue("Тело должно передаваться как есть.", Arrays.equals(body, response.getContentAsByteArray()));
+        assertEquals("Слушатель записи должен передаваться исходному потоку.", Collections.singletonList(listener), listeners);
+        assertEquals("Неблокирующие ответы должны учитываться.", nonBlocking + 1, metrics().get("nonBlocking").asLong());
+    }
+
+    //test8
+    @Test
+    public void asyncCompletedWithoutDispatchTest() throws Exception {
+        MockHttpServletRequest request = gzipRequest();
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ServletOutputStream[] out = new ServletOutputStream[1];
+        compressionFilter().doFilter(request, response, (req, res) -> {
+            req.startAsync();
+            res.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            out[0] = res.getOutputStream();
+            out[0].write(body(4096));
+        });
+        long idle = metrics().get("gzip").get("encodersIdle").asLong();
+
+        //as the container does after a timeout that nothing dispatched
+        request.getAsyncContext().complete();
+
+        assertEquals("Кодировщик должен возвращаться в пул по завершении асинхронного запроса.",
+                idle + 1, metrics().get("gzip").get("encodersIdle").asLong());
+        try {
+            out[0].write(body(10));
+            fail("Запись после завершения запроса должна отклоняться.");
+        } catch (IOException e) {
+            //the encoder is back in the pool and no longer written to
+        }
+    }
+
+    private Filter compressionFilter() {
+        return context.getBean("responseCompressionFilter", Filter.class);
+    }
+
+    private static MockHttpServletRequest gzipRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/rest/players/export");
+        request.addHeader("Accept-Encoding", "gzip");
+        return request;
+    }
+
+    private static byte[] body(int length) {
+        byte[] body = new byte[length];
+        Arrays.fill(body, (byte) 'a');
+        return body;
+    }
+
+    //a container response whose stream takes a write listener, which the mock one does not
+    private static class NonBlockingResponse extends HttpServletResponseWrapper {
+        private final MockHttpServletResponse response;
+        private final List<WriteListener> listeners;
+
+        NonBlockingResponse(MockHttpServletResponse response, List<WriteListener> listeners) {
+            super(response);
+            this.response = response;
+            this.listeners = listeners;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            ServletOutputStream out = response.getOutputStream();
+            return new ServletOutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener listener) {
+                    listeners.add(listener);
+                }
+            };
+        }
+    }
+
+    private MockHttpServletResponse export(String acceptEncoding) throws Exception {
+        MvcResult result = acceptEncoding == null
+                ? mockMvc.perform(get("/rest/players/export")).andExpect(request().asyncStarted()).andReturn()
+                : mockMvc.perform(get("/rest/players/export").header("Accept-Encoding", acceptEncoding))
+                .andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+    }
+
+    private static String decode(InputStream in) throws IOException {
+        try (InputStream decoded = in) {
+            return StreamUtils.copyToString(decoded, StandardCharsets.UTF_8);
+        }
+    }
+
+    private JsonNode metrics() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/metrics/compression"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(contentAsString);
+    }
+}
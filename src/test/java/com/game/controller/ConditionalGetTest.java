@@ -0,0 +1,136 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertFalse;
+import static org.springframework.test.util.AssertionErrors.assertNotNull;
+import static org.springframework.test.util.AssertionErrors.assertNull;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {"conditional.enabled=true", "conditional.lists.enabled=true"})
+public class ConditionalGetTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void getPlayerNotModifiedTest() throws Exception {
+        mockMvc.perform(get("/rest/players/5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""));
+        long lookupsBefore = metrics().get("lookups").asLong();
+
+        mockMvc.perform(get("/rest/players/5").header("If-None-Match", "\"0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andExpect(content().string(""));
+        assertEquals("Версия игрока должна сравниваться с сохранённой.",
+                lookupsBefore + 1, metrics().get("lookups").asLong());
+    }
+
+    //test2
+    @Test
+    public void getChangedPlayerTest() throws Exception {
+        mockMvc.perform(get("/rest/players/6"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/rest/players/6")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Первый\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/rest/players/6").header("If-None-Match", "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+        mockMvc.perform(get("/rest/players/6").header("If-None-Match", "\"1\""))
+                .andExpect(status().isNotModified());
+    }
+
+    //test3
+    @Test
+    public void listsNotModifiedTest() throws Exception {
+        String tag = mockMvc.perform(get("/rest/players?race=ELF"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull("Список игроков должен возвращаться с ETag.", tag);
+        assertTrue("ETag списка должен быть слабым.", tag.startsWith("W/\""));
+
+        for (String url : new String[]{"/rest/players?race=ELF", "/rest/players/count?race=ELF",
+                "/rest/players/page?race=ELF", "/rest/players/slice", "/rest/players?fields=id,name"}) {
+            mockMvc.perform(get(url).header("If-None-Match", tag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(content().string(""));
+        }
+    }
+
+    //test4
+    @Test
+    public void listModifiedAfterWriteTest() throws Exception {
+        String tag = mockMvc.perform(get("/rest/players/count"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(delete("/rest/players/7"))
+                .andExpect(status().isOk());
+
+        MockHttpServletResponse response = mockMvc.perform(get("/rest/players/count").header("If-None-Match", tag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertFalse("После удаления игрока ETag списка должен меняться.", tag.equals(response.getHeader("ETag")));
+        assertNull("Last-Modified не отправляется в ту же секунду, что и изменение.",
+                response.getHeader("Last-Modified"));
+    }
+
+    //test5
+    @Test
+    public void listIfModifiedSinceTest() throws Exception {
+        mockMvc.perform(delete("/rest/players/8"))
+                .andExpect(status().isOk());
+        Thread.sleep(1100);
+
+        String lastModified = mockMvc.perform(get("/rest/players/count"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Last-Modified");
+        assertNotNull("Список игроков должен возвращаться с Last-Modified.", lastModified);
+
+        mockMvc.perform(get("/rest/players/count").header("If-Modified-Since", lastModified))
+                .andExpect(status().isNotModified());
+    }
+
+    //test6
+    @Test
+    public void getPlayerChangedElsewhereTest() throws Exception {
+        mockMvc.perform(get("/rest/players/13").header("If-None-Match", "\"0\""))
+                .andExpect(status().isNotModified());
+
+        //as another node or a script would, without the events of this one
+        new JdbcTemplate(context.getBean(DataSource.class))
+                .update("UPDATE player SET name = 'Другой', version = version + 1 WHERE id = 13");
+
+        mockMvc.perform(get("/rest/players/13").header("If-None-Match", "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+    }
+
+    private JsonNode metrics() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/metrics/player-versions"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(contentAsString);
+    }
+}
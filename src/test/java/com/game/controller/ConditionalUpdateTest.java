@@ -0,0 +1,140 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ConditionalUpdateTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void getPlayerETagTest() throws Exception {
+        mockMvc.perform(get("/rest/players/4"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""));
+    }
+
+    //test2
+    @Test
+    public void updateWithCurrentETagTest() throws Exception {
+        mockMvc.perform(update(4, "\"0\"", null, "{\"name\":\"Первый\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+
+        mockMvc.perform(get("/rest/players/4"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+    }
+
+    //test3
+    @Test
+    public void updateWithStaleETagTest() throws Exception {
+        mockMvc.perform(update(4, null, null, "{\"name\":\"Первый\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(update(4, "\"0\"", null, "{\"name\":\"Второй\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(update(4, "\"0\"", "return=minimal", "{\"name\":\"Второй\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(update(4, "W/\"1\"", null, "{\"name\":\"Второй\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        assertEquals("Обновление с устаревшим ETag не должно применяться.", "Первый", player(4).name);
+    }
+
+    //test4
+    @Test
+    public void conflictingUpdatesLenientTest() throws Exception {
+        mockMvc.perform(update(4, "\"0\"", "handling=lenient", "{\"name\":\"Первый\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(header().doesNotExist("Preference-Applied"));
+
+        mockMvc.perform(update(4, "\"0\"", "handling=lenient", "{\"name\":\"Второй\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(update(4, "\"0\"", "return=minimal, handling=lenient", "{\"name\":\"Второй\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        assertEquals("Обновление полей с устаревшим ETag не должно применяться даже с handling=lenient.",
+                "Первый", player(4).name);
+    }
+
+    //test5
+    @Test
+    public void updateNotExistWithETagTest() throws Exception {
+        mockMvc.perform(update(415, "\"0\"", null, TestsHelper.NORMAL_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    //test6
+    @Test
+    public void experienceAwardChangesETagTest() throws Exception {
+        mockMvc.perform(post("/rest/players/4/experience")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\":10}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(update(4, "\"0\"", null, "{\"name\":\"Второй\"}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    //test7
+    @Test
+    public void experienceAwardWithStaleETagTest() throws Exception {
+        mockMvc.perform(update(4, null, null, "{\"name\":\"Первый\"}"))
+                .andExpect(status().isOk());
+        int experience = player(4).experience;
+
+        mockMvc.perform(award(4, "\"0\"", null, "{\"delta\":10}"))
+                .andExpect(status().isPreconditionFailed());
+        assertEquals("Начисление с устаревшим ETag без handling=lenient не должно применяться.",
+                experience, player(4).experience);
+
+        mockMvc.perform(award(4, "\"0\"", "handling=lenient", "{\"delta\":10}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Preference-Applied", "handling=lenient"));
+        mockMvc.perform(award(4, "\"2\"", null, "{\"delta\":10}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/rest/players/4"))
+                .andExpect(header().string("ETag", "\"3\""));
+        assertEquals("Начисление с handling=lenient должно применяться к текущей версии.",
+                experience + 20, player(4).experience);
+    }
+
+    private MockHttpServletRequestBuilder award(long id, String ifMatch, String prefer, String body) {
+        MockHttpServletRequestBuilder request = post("/rest/players/" + id + "/experience")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body);
+        if (ifMatch != null) request.header("If-Match", ifMatch);
+        if (prefer != null) request.header("Prefer", prefer);
+        return request;
+    }
+
+    private MockHttpServletRequestBuilder update(long id, String ifMatch, String prefer, String body) {
+        MockHttpServletRequestBuilder request = post("/rest/players/" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body);
+        if (ifMatch != null) request.header("If-Match", ifMatch);
+        if (prefer != null) request.header("Prefer", prefer);
+        return request;
+    }
+
+    private PlayerInfoTest player(long id) throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players/" + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(contentAsString, PlayerInfoTest.class);
+    }
+}
@@ -1,8 +1,18 @@
 package com.game.controller;
 
+import com.game.service.PlayersChangedEvent;
 import org.junit.Test;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.context.event.ApplicationEventMulticaster;
 import org.springframework.http.MediaType;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -39,4 +49,59 @@ public class DeletePlayerTest extends AbstractTest {
         mockMvc.perform(get("/rest/players/1"))
                 .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+
+    //test5
+    @Test
+    public void deletePlayersByIdsTest() throws Exception {
+        String contentAsString = mockMvc.perform(delete("/rest/players?ids=1,2,426"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("Возвращается не правильное количество удаленных игроков.", 2L, Long.parseLong(contentAsString));
+
+        mockMvc.perform(get("/rest/players/1"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/rest/players/2"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/rest/players/3"))
+                .andExpect(status().isOk());
+    }
+
+    //test6
+    @Test
+    public void deletePlayersByInvalidIdsTest() throws Exception {
+        mockMvc.perform(delete("/rest/players?ids="))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(delete("/rest/players?ids=1,0"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/rest/players/1"))
+                .andExpect(status().isOk());
+    }
+
+    //test7
+    @Test
+    public void deletePlayersPublishesDeletedTest() throws Exception {
+        List<PlayersChangedEvent> events = new ArrayList<>();
+        ApplicationListener<PayloadApplicationEvent<PlayersChangedEvent>> listener = event -> events.add(event.getPayload());
+        ApplicationEventMulticaster multicaster = context.getBean(ApplicationEventMulticaster.class);
+        multicaster.addApplicationListener(listener);
+        try {
+            mockMvc.perform(delete("/rest/players?ids=4,5,427"))
+                    .andExpect(status().isOk());
+            mockMvc.perform(delete("/rest/players/bulk?race=HOBBIT"))
+                    .andExpect(status().isOk());
+        } finally {
+            multicaster.removeApplicationListener(listener);
+        }
+
+        assertEquals("Удаление должно публиковать по событию на каждое удаление.", 2, events.size());
+        assertEquals("Удаленные по списку игроки должны публиковаться как удаленные.",
+                Arrays.asList(4L, 5L, 427L), new ArrayList<>(events.get(0).getDeletedIds()));
+        for (PlayersChangedEvent event : events) {
+            assertTrue("Удаленные игроки не должны публиковаться как измененные.", event.getChangedIds().isEmpty());
+            assertTrue("Удаление должно публиковать удаленных игроков.", !event.getDeletedIds().isEmpty());
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.repository.IdBlockAllocator;
+import com.game.repository.PlayerBatchRepository;
+import com.game.service.ExperienceWriteBehind;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertFalse;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.util.AssertionErrors.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//flushes only when the test asks for it
+@TestPropertySource(properties = {"experience.writeBehind.enabled=true",
+        "experience.writeBehind.maxPending=1000000", "experience.writeBehind.flushMillis=3600000"})
+public class ExperienceWriteBehindTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @After
+    public void flush() {
+        context.getBean(ExperienceWriteBehind.class).flush();
+    }
+
+    //test1
+    @Test
+    public void bufferedAwardsAreMergedAndFlushedTest() throws Exception {
+        PlayerInfoTest expected = testsHelper.getPlayerInfosById(9);
+        int experience = expected.experience + 3 * 700;
+        int level = (((int) Math.sqrt(2500 + 200 * experience)) - 50) / 100;
+
+        award(9, 700);
+        award(9, 700);
+        JsonNode progress = award(9, 700);
+        assertEquals("Ответ должен учитывать все начисления.", experience, progress.get("experience").asInt());
+        assertEquals("Уровень в ответе должен учитывать все начисления.", level, progress.get("level").asInt());
+
+        assertEquals("До записи начисления не должны попадать в базу.",
+                0L, count("?minExperience=" + experience + "&maxExperience=" + experience));
+        PlayerInfoTest merged = player(9);
+        assertEquals("Игрок должен читаться с учетом незаписанных начислений.", experience, merged.experience);
+        assertEquals("Уровень игрока должен учитывать незаписанные начисления.", level, merged.level);
+
+        context.getBean(ExperienceWriteBehind.class).flush();
+
+        assertEquals("После записи начисления должны попасть в базу.",
+                1L, count("?minExperience=" + experience + "&maxExperience=" + experience));
+        PlayerInfoTest actual = player(9);
+        assertEquals("Опыт не должен учитываться дважды после записи.", experience, actual.experience);
+        assertEquals("Уровень должен пересчитываться при записи.", level, actual.level);
+        assertEquals("Остаток до следующего уровня должен пересчитываться при записи.",
+                50 * (level + 1) * (level + 2) - experience, actual.untilNextLevel);
+    }
+
+    //test2
+    @Test
+    public void setExperienceDiscardsBufferedAwardsTest() throws Exception {
+        award(9, 700);
+
+        mockMvc.perform(post("/rest/players/9")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"experience\":1000}"))
+                .andExpect(status().isOk());
+        context.getBean(ExperienceWriteBehind.class).flush();
+
+        assertEquals("Установленный опыт не должен смещаться незаписанными начислениями.", 1000, player(9).experience);
+    }
+
+    //test3
+    @Test
+    public void awardToDeletedPlayerTest() throws Exception {
+        award(9, 700);
+        mockMvc.perform(delete("/rest/players/9"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/rest/players/9/experience")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\":700}"))
+                .andExpect(status().isNotFound());
+    }
+
+    //test4
+    @Test
+    public void pendingWhileFlushWritesTest() throws Exception {
+        StalledBuffer stalled = new StalledBuffer(false);
+        stalled.buffer.add(9, 700);
+
+        Future<?> flush = stalled.flush();
+        assertEquals("Записываемое начисление должно оставаться в ожидании до фиксации.", 700L, stalled.buffer.pending(9));
+
+        stalled.release(flush);
+        assertEquals("После фиксации начисление не должно оставаться в ожидании.", 0L, stalled.buffer.pending(9));
+    }
+
+    //test5
+    @Test
+    public void overwriteWaitsForRunningFlushTest() throws Exception {
+        StalledBuffer stalled = new StalledBuffer(false);
+        stalled.buffer.add(9, 700);
+        AtomicBoolean updated = new AtomicBoolean();
+
+        Future<?> flush = stalled.flush();
+        Future<?> overwrite = stalled.executor.submit(() -> stalled.buffer.overwrite(9, () -> {
+            updated.set(true);
+            return 1;
+        }));
+        Thread.sleep(200);
+        assertFalse("Установка опыта не должна обгонять начатую запись начислений.", updated.get());
+
+        stalled.release(flush);
+        overwrite.get(10, TimeUnit.SECONDS);
+        assertTrue("Установка опыта должна выполниться после записи начислений.", updated.get());
+    }
+
+    //test6
+    @Test
+    public void failedFlushKeepsDiscardTest() throws Exception {
+        StalledBuffer stalled = new StalledBuffer(true);
+        stalled.buffer.add(9, 700);
+        stalled.buffer.add(10, 300);
+
+        Future<?> flush = stalled.flush();
+        stalled.buffer.discard(9);
+        try {
+            stalled.release(flush);
+            fail("Запись должна завершиться ошибкой.");
+        } catch (Exception e) {
+            //expected
+        }
+
+        assertEquals("Сброшенное начисление не должно возвращаться после неудачной записи.", 0L, stalled.buffer.pending(9));
+        assertEquals("Остальные начисления должны вернуться после неудачной записи.", 300L, stalled.buffer.pending(10));
+    }
+
+    //a buffer on its own, whose writes wait for the test and then write nothing or fail
+    private class StalledBuffer {
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch proceed = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final ExperienceWriteBehind buffer;
+
+        StalledBuffer(boolean failing) {
+            PlayerBatchRepository repository = new PlayerBatchRepository(context.getBean(DataSource.class),
+                    context.getBean(IdBlockAllocator.class), context.getBean(EntityManagerFactory.class)) {
+                @Override
+                public void addExperience(Map<Long, Integer> deltas) {
+                    writing.countDown();
+                    try {
+                        proceed.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    if (failing) throw new IllegalStateException("write failed");
+                }
+            };
+            buffer = new ExperienceWriteBehind(true, 1000000, 3600000, repository, context,
+                    context.getBean(PlatformTransactionManager.class));
+        }
+
+        Future<?> flush() throws InterruptedException {
+            Future<?> flush = executor.submit(buffer::flush);
+            assertTrue("Запись начислений должна начаться.", writing.await(10, TimeUnit.SECONDS));
+            return flush;
+        }
+
+        void release(Future<?> flush) throws Exception {
+            proceed.countDown();
+            try {
+                flush.get(10, TimeUnit.SECONDS);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private JsonNode award(long id, int delta) throws Exception {
+        String contentAsString = mockMvc.perform(post("/rest/players/" + id + "/experience")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\":" + delta + "}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(contentAsString);
+    }
+
+    private long count(String query) throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players/count" + query))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Long.parseLong(contentAsString);
+    }
+
+    private PlayerInfoTest player(long id) throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players/" + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(contentAsString, PlayerInfoTest.class);
+    }
+}
@@ -0,0 +1,99 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ExportPlayersTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void exportNdjsonTest() throws Exception {
+        MvcResult result = export("/rest/players/export");
+        assertTrue("Не правильный Content-Type при экспорте в NDJSON.",
+                result.getResponse().getContentType().startsWith("application/x-ndjson"));
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        List<PlayerInfoTest> expected = testsHelper.getAllPlayers();
+        assertEquals("Экспорт должен содержать всех игроков.", expected.size(), lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            PlayerInfoTest actual = mapper.readValue(lines[i], PlayerInfoTest.class);
+            assertEquals("Игроки должны экспортироваться по порядку id.", expected.get(i).id, actual.id);
+            assertEquals("Не правильный игрок в экспорте.", expected.get(i), actual);
+        }
+    }
+
+    //test2
+    @Test
+    public void exportNdjsonWithFiltersTest() throws Exception {
+        String[] lines = export("/rest/players/export?race=ELF&order=EXPERIENCE")
+                .getResponse().getContentAsString().split("\n");
+
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByRace(Race.ELF, testsHelper.getAllPlayers());
+        assertEquals("Экспорт должен учитывать фильтры.", expected.size(), lines.length);
+
+        int previous = -1;
+        for (String line : lines) {
+            PlayerInfoTest actual = mapper.readValue(line, PlayerInfoTest.class);
+            assertEquals("Экспорт должен учитывать фильтры.", Race.ELF, actual.race);
+            assertTrue("Экспорт должен учитывать порядок.", actual.experience >= previous);
+            previous = actual.experience;
+        }
+    }
+
+    //test3
+    @Test
+    public void exportCsvTest() throws Exception {
+        MvcResult result = export("/rest/players/export?format=CSV&race=ELF");
+        assertTrue("Не правильный Content-Type при экспорте в CSV.",
+                result.getResponse().getContentType().startsWith("text/csv"));
+
+        String[] lines = result.getResponse().getContentAsString().split("\r\n");
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByRace(Race.ELF, testsHelper.getAllPlayers());
+        assertEquals("Не правильный заголовок CSV.",
+                "id,name,title,race,profession,birthday,banned,experience,level,untilNextLevel", lines[0]);
+        assertEquals("CSV должен содержать заголовок и всех подходящих игроков.", expected.size() + 1, lines.length);
+
+        List<String> rows = new ArrayList<>();
+        for (PlayerInfoTest player : expected) {
+            rows.add(player.id + "," + player.name + "," + player.title + "," + player.race + "," + player.profession
+                    + "," + player.birthday + "," + player.banned + "," + player.experience + "," + player.level
+                    + "," + player.untilNextLevel);
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals("Не правильная строка CSV.", rows.get(i), lines[i + 1]);
+        }
+    }
+
+    //test4
+    @Test
+    public void exportInvalidFormatTest() throws Exception {
+        mockMvc.perform(get("/rest/players/export?format=XML"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private MvcResult export(String url) throws Exception {
+        MvcResult started = mockMvc.perform(get(url))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+}
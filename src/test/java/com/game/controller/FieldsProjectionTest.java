@@ -0,0 +1,98 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Race;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class FieldsProjectionTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void getPlayersFieldsTest() throws Exception {
+        JsonNode rows = read("/rest/players?pageSize=10&fields=level,name,id");
+        List<PlayerInfoTest> expected = testsHelper.getAllPlayers();
+
+        assertEquals("Не правильное количество игроков.", 10, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            JsonNode row = rows.get(i);
+            assertEquals("Должны возвращаться только запрошенные поля.", "[id, name, level]", fieldNames(row).toString());
+            assertEquals("Не правильный id.", expected.get(i).id.longValue(), row.get("id").asLong());
+            assertEquals("Не правильное имя.", expected.get(i).name, row.get("name").asText());
+            assertEquals("Не правильный уровень.", expected.get(i).level.intValue(), row.get("level").asInt());
+        }
+    }
+
+    //test2
+    @Test
+    public void getPlayersFieldsWithFiltersAndOrderTest() throws Exception {
+        JsonNode rows = read("/rest/players?race=ELF&order=LEVEL&pageSize=20&fields=id,name,level");
+
+        int elves = testsHelper.getPlayerInfosByRace(Race.ELF, testsHelper.getAllPlayers()).size();
+        assertEquals("Проекция должна учитывать фильтры.", elves, rows.size());
+        int previous = -1;
+        for (JsonNode row : rows) {
+            PlayerInfoTest player = testsHelper.getPlayerInfosById(row.get("id").asLong());
+            assertEquals("Проекция должна учитывать фильтры.", Race.ELF, player.race);
+            assertTrue("Проекция должна учитывать порядок.", row.get("level").asInt() >= previous);
+            previous = row.get("level").asInt();
+        }
+    }
+
+    //test3
+    @Test
+    public void getPlayerFieldsTest() throws Exception {
+        PlayerInfoTest expected = testsHelper.getPlayerInfosById(5);
+        JsonNode row = read("/rest/players/5?fields=banned,birthday,race");
+
+        assertEquals("Должны возвращаться только запрошенные поля.", "[race, birthday, banned]", fieldNames(row).toString());
+        assertEquals("Не правильная раса.", expected.race.name(), row.get("race").asText());
+        assertEquals("Не правильная дата рождения.", expected.birthday.longValue(), row.get("birthday").asLong());
+        assertEquals("Не правильный признак бана.", expected.banned, row.get("banned").asBoolean());
+
+        mockMvc.perform(get("/rest/players/415?fields=name"))
+                .andExpect(status().isNotFound());
+    }
+
+    //test4
+    @Test
+    public void invalidFieldsTest() throws Exception {
+        mockMvc.perform(get("/rest/players?fields=name,password"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/players?fields="))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/players?fields=name&cursor="))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/players/0?fields=name"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode read(String url) throws Exception {
+        String contentAsString = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(contentAsString);
+    }
+
+    private static List<String> fieldNames(JsonNode row) {
+        List<String> names = new ArrayList<>();
+        for (Iterator<String> iterator = row.fieldNames(); iterator.hasNext(); ) {
+            names.add(iterator.next());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,110 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class GetCursorTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void getAllByCursorOrderLevelWithFilter() throws Exception {
+        List<PlayerInfoTest> expected = new ArrayList<>(testsHelper.getPlayerInfosByRace(Race.ELF, testsHelper.getAllPlayers()));
+        expected.sort(Comparator.<PlayerInfoTest, Integer>comparing(p -> p.level).thenComparing(p -> p.id));
+
+        assertEquals("Возвращается не правильный результат при постраничном обходе GET /rest/players по курсору.",
+                expected, readAllPages("/rest/players?race=ELF&order=LEVEL&pageSize=3"));
+    }
+
+    //test2
+    @Test
+    public void getAllByCursorOrderName() throws Exception {
+        List<PlayerInfoTest> expected = new ArrayList<>(testsHelper.getAllPlayers());
+        expected.sort(Comparator.<PlayerInfoTest, String>comparing(p -> p.name).thenComparing(p -> p.id));
+
+        assertEquals("Возвращается не правильный результат при постраничном обходе GET /rest/players по курсору.",
+                expected, readAllPages("/rest/players?order=NAME&pageSize=7"));
+    }
+
+    //test3
+    @Test
+    public void getAllByCursorOrderBirthday() throws Exception {
+        List<PlayerInfoTest> expected = new ArrayList<>(testsHelper.getAllPlayers());
+        expected.sort(Comparator.<PlayerInfoTest, Long>comparing(p -> p.birthday).thenComparing(p -> p.id));
+
+        assertEquals("Возвращается не правильный результат при постраничном обходе GET /rest/players по курсору.",
+                expected, readAllPages("/rest/players?order=BIRTHDAY&pageSize=4"));
+    }
+
+    //test4
+    @Test
+    public void getAllByInvalidCursor() throws Exception {
+        mockMvc.perform(get("/rest/players?cursor=not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test5
+    @Test
+    public void getAllByCursorWithNullKeys() throws Exception {
+        JdbcTemplate jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+        for (int i = 0; i < 3; i++) {
+            jdbc.update("INSERT INTO player(name, title, race, profession, birthday, banned, experience, level, untilNextLevel) "
+                    + "VALUES (NULL, NULL, 'ELF', 'ROGUE', NULL, false, NULL, NULL, NULL)");
+        }
+
+        for (String order : new String[]{"name", "experience", "level", "birthday"}) {
+            List<Long> expected = jdbc.queryForList("SELECT id FROM player ORDER BY " + order + ", id", Long.class);
+            assertEquals("Постраничный обход по курсору должен проходить игроков с пустым " + order + ".",
+                    expected, readAllIds("/rest/players?order=" + order.toUpperCase() + "&pageSize=2"));
+        }
+    }
+
+    private List<Long> readAllIds(String url) throws Exception {
+        List<Long> result = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            MockHttpServletResponse response = mockMvc.perform(get(url + "&cursor=" + cursor))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            for (JsonNode player : mapper.readTree(response.getContentAsString())) {
+                result.add(player.get("id").asLong());
+            }
+            cursor = response.getHeader(PlayerController.NEXT_CURSOR_HEADER);
+        }
+        return result;
+    }
+
+    private List<PlayerInfoTest> readAllPages(String url) throws Exception {
+        List<PlayerInfoTest> result = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            MockHttpServletResponse response = mockMvc.perform(get(url + "&cursor=" + cursor))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            result.addAll(mapper.readValue(response.getContentAsString(), typeReference));
+            cursor = response.getHeader(PlayerController.NEXT_CURSOR_HEADER);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,74 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Race;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class GetPageTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void getPageWithFiltersReturnsContentAndTotal() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players/page?race=ELF&pageNumber=1&pageSize=4"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode page = mapper.readTree(contentAsString);
+        List<PlayerInfoTest> actual = mapper.convertValue(page.get("content"), typeReference);
+        List<PlayerInfoTest> elves = testsHelper.getPlayerInfosByRace(Race.ELF, testsHelper.getAllPlayers());
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/players/page.",
+                testsHelper.getPlayerInfosByPage(1, 4, elves), actual);
+        assertEquals("Возвращается не правильное количество при запросе GET /rest/players/page.",
+                (long) elves.size(), page.get("total").asLong());
+    }
+
+    //test2
+    @Test
+    public void getPageAfterLastPageReturnsTotal() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players/page?pageNumber=100"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode page = mapper.readTree(contentAsString);
+
+        assertEquals("Страница после последней должна быть пустой.", 0, page.get("content").size());
+        assertEquals("Возвращается не правильное количество при запросе GET /rest/players/page.",
+                (long) testsHelper.getAllPlayers().size(), page.get("total").asLong());
+    }
+
+    //test3
+    @Test
+    public void getSliceReturnsHasNext() throws Exception {
+        String first = mockMvc.perform(get("/rest/players/slice?pageSize=20"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String last = mockMvc.perform(get("/rest/players/slice?pageSize=20&pageNumber=1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode firstSlice = mapper.readTree(first);
+        JsonNode lastSlice = mapper.readTree(last);
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/players/slice.",
+                testsHelper.getPlayerInfosByPage(0, 20, testsHelper.getAllPlayers()),
+                mapper.convertValue(firstSlice.get("content"), typeReference));
+        assertEquals("У первой страницы должна быть следующая.", true, firstSlice.get("hasNext").asBoolean());
+        assertEquals("У последней страницы не должно быть следующей.", false, lastSlice.get("hasNext").asBoolean());
+    }
+}
@@ -0,0 +1,148 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.sql.DataSource;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ImportPlayersTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void importNdjsonReportsRejectedRowsTest() throws Exception {
+        String body = TestsHelper.NORMAL_JSON + "\n"
+                + TestsHelper.NEGATIVE_BIRTHDAY_JSON + "\n"
+                + "\n"
+                + "{\"name\":\n"
+                + TestsHelper.BANNED_TRUE_JSON + "\n";
+
+        JsonNode result = importPlayers("NDJSON", body);
+        assertEquals("Не правильное количество строк импорта.", 4, result.get("rows").asInt());
+        assertEquals("Не правильное количество созданных игроков.", 2, result.get("created").asInt());
+        assertEquals("Не правильное количество отклоненных игроков.", 2, result.get("failed").asInt());
+        assertEquals("Импорт должен добавлять игроков.", testsHelper.getAllPlayers().size() + 2, count());
+
+        MvcResult started = mockMvc.perform(get(result.get("errors").asText()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String[] errors = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().split("\r\n");
+        assertEquals("Файл ошибок должен содержать заголовок и строку на каждого отклоненного игрока.", 3, errors.length);
+        assertTrue("В файле ошибок должен быть номер отклоненной строки.", errors[1].startsWith("2,"));
+        assertTrue("В файле ошибок должен быть номер отклоненной строки.", errors[2].startsWith("3,"));
+    }
+
+    //test2
+    @Test
+    public void importCsvExportRoundTripTest() throws Exception {
+        MvcResult started = mockMvc.perform(get("/rest/players/export?format=CSV&race=ELF"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String csv = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        int elves = testsHelper.getPlayerInfosByRace(Race.ELF, testsHelper.getAllPlayers()).size();
+        JsonNode result = importPlayers("CSV", csv);
+        assertEquals("Экспортированные игроки должны импортироваться без ошибок.", 0, result.get("failed").asInt());
+        assertEquals("Не правильное количество созданных игроков.", elves, result.get("created").asInt());
+        assertTrue("Импорт без ошибок не должен возвращать файл ошибок.", result.get("errors").isNull());
+
+        String elvesCount = mockMvc.perform(get("/rest/players/count?race=ELF"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Импортированные игроки должны находиться фильтром.", 2 * elves, Integer.parseInt(elvesCount));
+    }
+
+    //test3
+    @Test
+    public void importManyChunksTest() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 2345; i++) {
+            body.append(TestsHelper.NORMAL_JSON).append('\n');
+        }
+
+        JsonNode result = importPlayers("NDJSON", body.toString());
+        assertEquals("Не правильное количество созданных игроков.", 2345, result.get("created").asInt());
+        assertEquals("Импорт должен добавлять игроков.", testsHelper.getAllPlayers().size() + 2345, count());
+    }
+
+    //test4
+    @Test
+    public void importInvalidTest() throws Exception {
+        mockMvc.perform(post("/rest/players/import?format=CSV")
+                .contentType("text/csv")
+                .content("id,name\r\n1,Первый\r\n"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/rest/players/import?format=XML")
+                .contentType(MediaType.APPLICATION_XML)
+                .content("<player/>"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/rest/players/import/unknown/errors"))
+                .andExpect(status().isNotFound());
+    }
+
+    //test5
+    @Test
+    public void importCsvExportWithoutExperienceTest() throws Exception {
+        new JdbcTemplate(context.getBean(DataSource.class)).update("UPDATE player SET experience = NULL, level = NULL,"
+                + " untilNextLevel = NULL WHERE id = (SELECT MIN(id) FROM player WHERE race = 'ELF')");
+        MvcResult started = mockMvc.perform(get("/rest/players/export?format=CSV&race=ELF"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String csv = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue("Пустые поля не должны экспортироваться как null.", !csv.contains("null"));
+
+        int elves = testsHelper.getPlayerInfosByRace(Race.ELF, testsHelper.getAllPlayers()).size();
+        JsonNode result = importPlayers("CSV", csv);
+        assertEquals("Не правильное количество созданных игроков.", elves - 1, result.get("created").asInt());
+        assertEquals("Игрок без опыта должен отклоняться.", 1, result.get("failed").asInt());
+
+        started = mockMvc.perform(get(result.get("errors").asText()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String errors = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue("Игрок без опыта должен отклоняться проверкой опыта, а не разбором числа.",
+                errors.contains("Invalid Experience") && !errors.contains("Invalid number"));
+    }
+
+    private JsonNode importPlayers(String format, String body) throws Exception {
+        String contentAsString = mockMvc.perform(post("/rest/players/import?format=" + format)
+                .contentType(format.equals("CSV") ? "text/csv" : "application/x-ndjson")
+                .characterEncoding("UTF-8")
+                .content(body.getBytes("UTF-8")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(contentAsString);
+    }
+
+    private int count() throws Exception {
+        return Integer.parseInt(mockMvc.perform(get("/rest/players/count"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,74 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import static org.springframework.test.util.AssertionErrors.assertFalse;
+import static org.springframework.test.util.AssertionErrors.assertNotNull;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class IndexAdvisorTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void indexesReadAtStartupTest() throws Exception {
+        assertTrue("Индексы таблицы должны читаться при запуске.", metrics().get("indexes").asInt() > 1);
+    }
+
+    //test2
+    @Test
+    public void likeFilterWithDefaultOrderTest() throws Exception {
+        mockMvc.perform(get("/rest/players?name=ан"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players?title=Вои&order=ID"))
+                .andExpect(status().isOk());
+
+        assertFalse("Поиск по подстроке имени не использует индекс, даже с сортировкой по id.",
+                indexed("filter=[] like=[name] order=id"));
+        assertFalse("Поиск по подстроке титула не использует индекс, даже с сортировкой по id.",
+                indexed("filter=[] like=[title] order=id"));
+    }
+
+    //test3
+    @Test
+    public void indexedFiltersTest() throws Exception {
+        mockMvc.perform(get("/rest/players?race=ELF&banned=false"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/count?profession=ROGUE&name=ан"))
+                .andExpect(status().isOk());
+
+        assertTrue("Фильтр по расе и бану должен использовать индекс.", indexed("filter=[race, banned] order=id"));
+        assertTrue("Фильтр по профессии должен использовать индекс.", indexed("filter=[profession] like=[name] count"));
+    }
+
+    //test4
+    @Test
+    public void unfilteredOrderTest() throws Exception {
+        mockMvc.perform(get("/rest/players?order=NAME"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/count"))
+                .andExpect(status().isOk());
+
+        assertTrue("Сортировка без фильтров должна использовать индекс по полю сортировки.",
+                indexed("filter=[] order=name"));
+        assertTrue("Подсчёт без фильтров должен считаться поддержанным.", indexed("filter=[] count"));
+    }
+
+    private boolean indexed(String signature) throws Exception {
+        JsonNode stats = metrics().get(signature);
+        assertNotNull("Запрос должен учитываться советником: " + signature, stats);
+        return stats.get("indexed").asBoolean();
+    }
+
+    private JsonNode metrics() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/metrics/index-advisor"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(contentAsString);
+    }
+}
@@ -0,0 +1,60 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "cache.query.enabled=true")
+public class QueryCacheTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void countIsCachedAndInvalidatedByDelete() throws Exception {
+        List<PlayerInfoTest> elves = testsHelper.getPlayerInfosByRace(Race.ELF, testsHelper.getAllPlayers());
+        long hitsBefore = metrics().get("hits").asLong();
+
+        long notBanned = count("?race=ELF&banned=false");
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/players/count.",
+                notBanned, count("?banned=false&race=ELF"));
+        assertEquals("Одинаковые фильтры в разном порядке должны браться из кэша.",
+                hitsBefore + 1, metrics().get("hits").asLong());
+
+        long total = count("?race=ELF");
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/players/count.",
+                (long) elves.size(), total);
+
+        mockMvc.perform(delete("/rest/players/" + elves.get(0).id))
+                .andExpect(status().isOk());
+
+        assertEquals("После удаления игрока кэш количества должен сбрасываться.", total - 1, count("?race=ELF"));
+        assertEquals("После удаления игрока кэш должен сбрасываться.", 1L, metrics().get("invalidations").asLong());
+    }
+
+    private long count(String query) throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players/count" + query))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Long.parseLong(contentAsString);
+    }
+
+    private JsonNode metrics() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/metrics/query-cache"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(contentAsString);
+    }
+}
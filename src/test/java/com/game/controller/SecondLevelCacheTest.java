@@ -0,0 +1,66 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "cache.l2.enabled=true")
+public class SecondLevelCacheTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void playerAndQueryResultsAreCached() throws Exception {
+        PlayerInfoTest expected = testsHelper.getPlayerInfosById(7);
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/players/{id}.", expected, player(7));
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/players/{id}.", expected, player(7));
+        assertTrue("Повторное чтение игрока должно браться из кэша второго уровня.",
+                metrics().get("secondLevelHits").asLong() >= 1);
+
+        long count = count();
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/players/count.", count, count());
+        assertTrue("Повторный запрос количества должен браться из кэша запросов.",
+                metrics().get("queryHits").asLong() >= 1);
+
+        mockMvc.perform(post("/rest/players/7")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Cached\"}"))
+                .andExpect(status().isOk());
+
+        assertEquals("После обновления игрок не должен читаться из кэша в старом виде.", "Cached", player(7).name);
+    }
+
+    private PlayerInfoTest player(long id) throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players/" + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(contentAsString, PlayerInfoTest.class);
+    }
+
+    private long count() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players/count?race=ELF"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Long.parseLong(contentAsString);
+    }
+
+    private JsonNode metrics() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/metrics/hibernate-cache"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(contentAsString);
+    }
+}
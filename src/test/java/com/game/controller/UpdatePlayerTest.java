@@ -12,6 +12,7 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import static org.springframework.test.util.AssertionErrors.assertEquals;
 import static org.springframework.test.util.AssertionErrors.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -181,4 +182,35 @@ public class UpdatePlayerTest extends AbstractTest {
 
         assertEquals("При запросе POST /rest/players/{id} игрок должен обновляться и рейтинг пересчитываться", expected, actual);
     }
-}
\ No newline at end of file
+
+    //test12
+    @Test
+    public void updatePlayerReturnMinimalTest() throws Exception {
+        PlayerInfoTest playerInfoTest = testsHelper.getPlayerInfosById(14);
+
+        mockMvc.perform(post("/rest/players/" + playerInfoTest.id)
+                .header("Prefer", "return=minimal")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format(TestsHelper.JSON_SKELETON, "TestName", false, 2500)))
+                .andExpect(status().isNoContent());
+
+        String contentAsString = mockMvc.perform(get("/rest/players/" + playerInfoTest.id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        PlayerInfoTest actual = mapper.readValue(contentAsString, PlayerInfoTest.class);
+
+        PlayerInfoTest expected = new PlayerInfoTest(playerInfoTest.id, "TestName", playerInfoTest.title, playerInfoTest.race, playerInfoTest.profession,
+                playerInfoTest.birthday, false, 2500, 6, 300);
+        assertEquals("При запросе POST /rest/players/{id} с Prefer: return=minimal игрок должен обновляться", expected, actual);
+    }
+
+    //test13
+    @Test
+    public void updatePlayerReturnMinimalNotExistTest() throws Exception {
+        mockMvc.perform(post("/rest/players/415")
+                .header("Prefer", "return=minimal")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isNotFound());
+    }
+}
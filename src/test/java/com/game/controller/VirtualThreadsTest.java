@@ -0,0 +1,60 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.service.Bulkheads;
+import org.junit.Test;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {"threads.virtual=true", "bulkhead.enabled=true"})
+public class VirtualThreadsTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void availabilityTest() throws Exception {
+        JsonNode threads = metrics("threads");
+        assertTrue("Виртуальные потоки должны быть запрошены.", threads.get("virtualRequested").asBoolean());
+        assertEquals("Виртуальные потоки должны использоваться только там, где они есть.",
+                javaVersion() >= 21, threads.get("virtual").asBoolean());
+        assertEquals("Пулы должны сообщать, на каких потоках работают.",
+                threads.get("virtual").asBoolean(), metrics("bulkheads").get("virtualThreads").asBoolean());
+    }
+
+    //test2
+    @Test
+    public void readOnBulkheadThreadTest() throws Exception {
+        Bulkheads bulkheads = context.getBean(Bulkheads.class);
+        String name = bulkheads.submit(Bulkheads.Kind.READS, () -> Thread.currentThread().getName()).get();
+        assertTrue("Чтение должно выполняться потоком пула чтений.", name.startsWith("player-reads-"));
+
+        MvcResult result = mockMvc.perform(get("/rest/players/12"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+        assertTrue("Чтения должны проходить через пул.",
+                metrics("bulkheads").get("reads").get("waitTime").get("count").asLong() > 1);
+    }
+
+    private static int javaVersion() {
+        String version = System.getProperty("java.specification.version");
+        return Integer.parseInt(version.startsWith("1.") ? version.substring(2) : version);
+    }
+
+    private JsonNode metrics(String name) throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/metrics/" + name))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(contentAsString);
+    }
+}
@@ -12,6 +12,7 @@ CREATE TABLE player
     experience     INT(10)     NULL,
     level          INT(3)      NULL,
     untilNextLevel INT(10)     NULL,
+    version        BIGINT(20)  NOT NULL DEFAULT 0,
     PRIMARY KEY (id)
 );
 
@@ -55,4 +56,17 @@ VALUES ('Ниус', 'Приходящий Без Шума', 'HOBBIT', 'ROGUE', '
      , ('Яра', 'Прельстивая', 'HUMAN', 'CLERIC', '2004-06-12', false, 138306, 52, 4794)
      , ('Иллинас', 'Иероглиф', 'HOBBIT', 'WARRIOR', '2007-06-03', false, 115546, 47, 2054)
      , ('Ардонг', 'Вспышк A', 'HUMAN', 'WARLOCK', '2009-09-16', false, 24984, 21, 316)
-     , ('Аттирис', 'и.о.Карвандоса', 'ELF', 'SORCERER', '2010-04-15', true, 60520, 34, 2480);
\ No newline at end of file
+     , ('Аттирис', 'и.о.Карвандоса', 'ELF', 'SORCERER', '2010-04-15', true, 60520, 34, 2480);
+
+DROP TABLE IF EXISTS player_id_block;
+
+CREATE TABLE player_id_block
+(
+    name    VARCHAR(64) NOT NULL,
+    next_id BIGINT(20)  NOT NULL,
+    PRIMARY KEY (name)
+);
+
+INSERT INTO player_id_block (name, next_id)
+SELECT 'player', MAX(id) + 1
+FROM player;